@@ -6,7 +6,6 @@ import {
   fetchMyOrders,
   checkout,
   fetchOrderTickets,
-  ticketPngUrl,
   login as apiLogin,
   verifyOtp,
   register as apiRegister,
@@ -18,6 +17,7 @@ import {
   verifyTicketKey,
   consumeTicket,
 } from "./services/api";
+import TicketQr from "./components/TicketQr";
 import "./styles.css";
 
 const BRAND = "JO Paris 2024";
@@ -749,9 +749,10 @@ export default function App() {
                       consommé:&nbsp;
                       <strong>{t.consumedAt ? "Oui" : "Non"}</strong>
                     </div>
-                    <img
+                    <TicketQr
                       alt="QR"
-                      src={ticketPngUrl(t.id)}
+                      ticketId={t.id}
+                      token={token}
                       style={{
                         width: "100%",
                         borderRadius: 12,
@@ -4,9 +4,9 @@ import {
   fetchOffers,
   fetchMyOrders,
   fetchOrderTickets,
-  ticketPngUrl,
   consumeTicket,
 } from '../services/api';
+import TicketQr from './TicketQr';
 
 export default function Home({ user, token, onLogout }) {
   const [offers, setOffers] = useState([]);
@@ -205,7 +205,7 @@ export default function Home({ user, token, onLogout }) {
             <div className="stack">
               {tickets.map(t => (
                 <div key={t.id} className="card ticket">
-                  <img src={ticketPngUrl(t.id)} alt={`QR ${t.id}`} />
+                  <TicketQr ticketId={t.id} token={token} alt={`QR ${t.id}`} />
                   <div className="stack">
                     <div className="row" style={{gap:10, flexWrap:'wrap'}}>
                       <strong>ticket #{t.id}</strong>
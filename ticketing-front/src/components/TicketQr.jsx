@@ -0,0 +1,26 @@
+import { useEffect, useState } from "react";
+import { fetchTicketQrBlob } from "../services/api";
+
+/* qr.png est réservé au propriétaire du billet : chargé avec le JWT puis affiché via une URL blob */
+export default function TicketQr({ ticketId, token, alt, style }) {
+  const [url, setUrl] = useState(null);
+
+  useEffect(() => {
+    if (!ticketId || !token) return;
+    let objectUrl = null;
+    let cancelled = false;
+    fetchTicketQrBlob(ticketId, token)
+      .then((blob) => {
+        if (cancelled) return;
+        objectUrl = URL.createObjectURL(blob);
+        setUrl(objectUrl);
+      })
+      .catch(() => setUrl(null));
+    return () => {
+      cancelled = true;
+      if (objectUrl) URL.revokeObjectURL(objectUrl);
+    };
+  }, [ticketId, token]);
+
+  return url ? <img src={url} alt={alt} style={style} /> : null;
+}
@@ -134,10 +134,6 @@ export async function fetchTicketQrBlob(ticketId, token) {
   return res.blob();
 }
 
-export function ticketPngUrl(ticketId) {
-  return `${API_URL}/api/tickets/${ticketId}/qr.png`;
-}
-
 export async function verifyTicketKey(token, key) {
   const res = await fetch(
     `${API_URL}/api/tickets/verify?key=${encodeURIComponent(key)}`,
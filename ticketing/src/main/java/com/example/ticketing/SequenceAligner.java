@@ -0,0 +1,72 @@
+package com.example.ticketing;
+
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.DatabaseMetaData;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Les tables orders/ticket utilisaient des colonnes IDENTITY : sur une base existante,
+ * les séquences créées par Hibernate repartent de 1. On les recale au-dessus du max(id).
+ * Exécuté une fois les singletons créés (schéma à jour), avant le démarrage du serveur web :
+ * aucune requête ne peut obtenir un id pendant le recalage. La valeur courante est lue
+ * dans le catalogue, sans nextval (qui consommerait un bloc à chaque démarrage).
+ */
+@Component
+@RequiredArgsConstructor
+public class SequenceAligner implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(SequenceAligner.class);
+
+    // séquence -> table (allocationSize = 50 côté entités)
+    private static final Map<String, String> SEQUENCES = Map.of(
+            "orders_seq", "orders",
+            "ticket_seq", "ticket"
+    );
+    private static final long ALLOCATION_SIZE = 50;
+
+    private final JdbcTemplate jdbc;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        String nextValueSql = nextValueSql();
+        if (nextValueSql == null) return;
+
+        SEQUENCES.forEach((seq, table) -> {
+            List<Long> next = jdbc.queryForList(nextValueSql, Long.class, seq);
+            if (next.isEmpty() || next.get(0) == null) return;
+            Long max = jdbc.queryForObject("select coalesce(max(id), 0) from " + table, Long.class);
+            // optimiseur pooled : le prochain nextval N distribue les ids ]N - 50, N]
+            if (max != null && next.get(0) - ALLOCATION_SIZE < max) {
+                jdbc.execute("alter sequence " + seq + " restart with " + (max + ALLOCATION_SIZE));
+                log.info("Séquence {} recalée au-dessus de max(id) = {}", seq, max);
+            }
+        });
+    }
+
+    /* Prochaine valeur rendue par nextval, lue sans la consommer ; null : base non gérée */
+    private String nextValueSql() {
+        String product;
+        try {
+            product = JdbcUtils.extractDatabaseMetaData(jdbc.getDataSource(), DatabaseMetaData::getDatabaseProductName);
+        } catch (Exception e) {
+            log.warn("Recalage des séquences ignoré : base inaccessible", e);
+            return null;
+        }
+        return switch (product) {
+            case "H2" -> "select BASE_VALUE from INFORMATION_SCHEMA.SEQUENCES where lower(SEQUENCE_NAME) = ?";
+            case "PostgreSQL" -> "select coalesce(last_value + increment_by, start_value) from pg_sequences where sequencename = ?";
+            default -> {
+                log.warn("Recalage des séquences non géré pour {}", product);
+                yield null;
+            }
+        };
+    }
+}
@@ -1,26 +1,32 @@
 package com.example.ticketing.admin;
 
 import com.example.ticketing.admin.dto.AdminSalesResponse;
-import com.example.ticketing.admin.dto.SalesStat;
-import com.example.ticketing.ticket.TicketRepository;
+import com.example.ticketing.inventory.InventoryService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
 public class AdminStatsController {
 
-    private final TicketRepository tickets;
+    private final InventoryService inventory;
+    private final SalesFeed feed;
 
+    // compteurs tenus à jour au checkout et au contrôle : O(offres), pas de scan des billets
     @GetMapping("/sales")
     @PreAuthorize("hasRole('ADMIN')") //
     public AdminSalesResponse sales() {
-        List<SalesStat> list = tickets.findSalesByOffer();
-        long total = list.stream().mapToLong(SalesStat::ticketsSold).sum();
-        return new AdminSalesResponse(total, list);
+        return AdminSalesResponse.of(inventory.sales());
+    }
+
+    /* Tableau de bord en direct : un événement "sales" à chaque changement */
+    @GetMapping(value = "/sales/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public SseEmitter salesStream() {
+        return feed.subscribe();
     }
 }
@@ -0,0 +1,35 @@
+package com.example.ticketing.admin;
+
+import com.example.ticketing.security.PrincipalCache;
+import com.example.ticketing.security.RevocationList;
+import com.example.ticketing.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/users")
+@RequiredArgsConstructor
+public class AdminUserController {
+
+    private final UserRepository users;
+    private final RevocationList revocations;
+    private final PrincipalCache principals;
+
+    /** Invalide toutes les sessions (JWT) déjà émises pour cet utilisateur. */
+    @PostMapping("/{id}/revoke-sessions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> revokeSessions(@PathVariable Long id) {
+        if (!users.existsById(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Utilisateur inconnu");
+        }
+        revocations.revokeUser(id);
+        principals.evict(id);
+        return ResponseEntity.ok(Map.of("message", "ok"));
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.ticketing.admin;
+
+import com.example.ticketing.admin.dto.AdminSalesResponse;
+import com.example.ticketing.inventory.InventoryService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Flux SSE des ventes pour le tableau de bord admin.
+ * Un seul calcul par période, quel que soit le nombre d'écrans abonnés ;
+ * rien n'est envoyé tant que les chiffres ne bougent pas.
+ */
+@Component
+public class SalesFeed {
+
+    private final InventoryService inventory;
+    private final long timeoutMillis;
+    private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+    private volatile AdminSalesResponse last;
+
+    public SalesFeed(InventoryService inventory,
+                     @Value("${app.admin.sales-stream.timeout-ms:1800000}") long timeoutMillis) {
+        this.inventory = inventory;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        emitter.onCompletion(() -> emitters.remove(emitter));
+        emitter.onTimeout(() -> emitters.remove(emitter));
+        emitter.onError(e -> emitters.remove(emitter));
+        emitters.add(emitter);
+
+        AdminSalesResponse snapshot = last != null ? last : AdminSalesResponse.of(inventory.sales());
+        send(emitter, snapshot);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${app.admin.sales-stream.period-ms:1000}")
+    public void publish() {
+        if (emitters.isEmpty()) {
+            last = null;
+            return;
+        }
+        AdminSalesResponse now = AdminSalesResponse.of(inventory.sales());
+        if (now.equals(last)) return;
+        last = now;
+        for (SseEmitter e : emitters) send(e, now);
+    }
+
+    private void send(SseEmitter emitter, AdminSalesResponse data) {
+        try {
+            emitter.send(SseEmitter.event().name("sales").data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            emitters.remove(emitter);
+            emitter.completeWithError(e);
+        }
+    }
+}
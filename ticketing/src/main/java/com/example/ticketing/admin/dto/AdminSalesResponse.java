@@ -4,5 +4,17 @@ import java.util.List;
 
 public record AdminSalesResponse(
         long total,
+        long revenueCents,
+        long consumed,
         List<SalesStat> byoffer
-) {}
+) {
+    public static AdminSalesResponse of(List<SalesStat> byOffer) {
+        long total = 0, revenue = 0, consumed = 0;
+        for (SalesStat s : byOffer) {
+            total += s.ticketsSold();
+            revenue += s.revenueCents();
+            consumed += s.consumed();
+        }
+        return new AdminSalesResponse(total, revenue, consumed, byOffer);
+    }
+}
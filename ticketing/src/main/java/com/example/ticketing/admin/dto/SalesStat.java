@@ -3,5 +3,7 @@ package com.example.ticketing.admin.dto;
 public record SalesStat(
         Long offerId,
         String offerName,
-        long ticketsSold
+        long ticketsSold,
+        long revenueCents,
+        long consumed
 ) {}
@@ -79,6 +79,12 @@ public class AuthController {
         return ResponseEntity.ok(Map.of("token", token));
     }
 
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@RequestHeader(value = "Authorization", required = false) String authorization) {
+        auth.logout(authorization);
+        return ResponseEntity.ok(Map.of("message", "ok"));
+    }
+
     /* ===================== ME (pour le front) ===================== */
 
     @GetMapping("/api/me")
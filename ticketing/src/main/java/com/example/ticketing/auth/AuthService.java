@@ -1,13 +1,15 @@
 package com.example.ticketing.auth;
 
 import com.example.ticketing.security.JwtService;
+import com.example.ticketing.security.PasswordHasher;
+import com.example.ticketing.security.RevocationList;
 import com.example.ticketing.user.User;
 import com.example.ticketing.user.UserRepository;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.security.SecureRandom;
@@ -19,9 +21,11 @@ import java.time.temporal.ChronoUnit;
 public class AuthService {
 
     private final UserRepository users;
-    private final OtpCodeRepository otps;
-    private final PasswordEncoder encoder;
+    private final OtpStore otps;
+    private final PasswordHasher hasher;
+    private final SecureRandom random;
     private final JwtService jwt;
+    private final RevocationList revocations;
 
     public void register(String email, String rawPwd, String first, String last) {
         String normEmail = email == null ? null : email.trim().toLowerCase();
@@ -32,7 +36,7 @@ public class AuthService {
 
         User u = User.builder()
                 .email(normEmail)
-                .passwordHash(encoder.encode(rawPwd))
+                .passwordHash(hasher.encode(rawPwd))
                 .firstName(first != null ? first.trim() : null)
                 .lastName(last != null ? last.trim() : null)
                 .build();
@@ -45,23 +49,17 @@ public class AuthService {
         User u = users.findByEmail(normEmail)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Utilisateur inconnu"));
 
-        if (!encoder.matches(rawPwd, u.getPasswordHash())) {
+        if (!hasher.matches(rawPwd, u.getPasswordHash())) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Mot de passe invalide");
         }
 
         // Génère un OTP 6 chiffres (valide 2 min)
-        String code = String.format("%06d", new SecureRandom().nextInt(1_000_000));
-        OtpCode otp = OtpCode.builder()
-                .user(u)
-                .code(code)
-                .expiresAt(Instant.now().plus(2, ChronoUnit.MINUTES))
-                .build();
-        otps.save(otp);
+        String code = String.format("%06d", random.nextInt(1_000_000));
+        otps.issue(u, code, Instant.now().plus(2, ChronoUnit.MINUTES));
 
         System.out.println("OTP pour " + normEmail + " = " + code + " (valide 2 min)");
     }
 
-    @Transactional
     public String verifyOtp(String email, String code) {
         String normEmail = email == null ? null : email.trim().toLowerCase();
         String normCode  = code  == null ? null : code.trim();
@@ -69,20 +67,28 @@ public class AuthService {
         User u = users.findByEmail(normEmail)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Utilisateur inconnu"));
 
-        OtpCode last = otps.findTopByUserOrderByIdDesc(u)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "OTP introuvable"));
+        switch (otps.verify(u, normCode)) {
+            case OK -> { }
+            case NOT_FOUND -> throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "OTP introuvable");
+            case EXPIRED -> throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "OTP expiré ou déjà utilisé");
+            case INVALID -> throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "OTP invalide");
+            case TOO_MANY_ATTEMPTS -> throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Trop de tentatives, reconnectez-vous");
+        }
 
+        return jwt.generate(u);
+    }
 
-        if (!last.isValidNow()) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "OTP expiré ou déjà utilisé");
+    /** Révoque le token présenté (jti) jusqu'à son expiration naturelle. */
+    public void logout(String authHeader) {
+        Claims claims;
+        try {
+            claims = jwt.parse(authHeader);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Token invalide");
         }
-        if (!last.getCode().equals(normCode)) {
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "OTP invalide");
+        if (claims.getId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Token sans identifiant, non révocable");
         }
-
-        last.setConsumedAt(Instant.now());
-        otps.save(last);
-
-        return jwt.generate(u);
+        revocations.revokeToken(claims.getId(), claims.getExpiration().toInstant());
     }
 }
@@ -0,0 +1,77 @@
+package com.example.ticketing.auth;
+
+import com.example.ticketing.user.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Un emplacement par utilisateur en mémoire : lecture O(1), taille bornée par le nombre
+ * de connexions en cours (purge périodique des codes expirés).
+ * Valable pour une instance unique ; en multi-instances, utiliser app.otp.store=db.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryOtpStore implements OtpStore {
+
+    private record Slot(String code, Instant expiresAt, int attempts) {}
+
+    private final Map<Long, Slot> slots = new ConcurrentHashMap<>();
+    private final int maxAttempts;
+
+    public InMemoryOtpStore(@Value("${app.otp.max-attempts:5}") int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    public void issue(User user, String code, Instant expiresAt) {
+        slots.put(user.getId(), new Slot(code, expiresAt, 0));
+    }
+
+    @Override
+    public Result verify(User user, String code) {
+        Instant now = Instant.now();
+        Result[] out = new Result[1];
+        // compute : vérification et consommation atomiques pour cet utilisateur
+        slots.compute(user.getId(), (id, s) -> {
+            if (s == null) {
+                out[0] = Result.NOT_FOUND;
+                return null;
+            }
+            if (!s.expiresAt().isAfter(now)) {
+                out[0] = Result.EXPIRED;
+                return null;
+            }
+            if (!sameCode(s.code(), code)) {
+                int attempts = s.attempts() + 1;
+                if (attempts >= maxAttempts) {
+                    out[0] = Result.TOO_MANY_ATTEMPTS;
+                    return null;
+                }
+                out[0] = Result.INVALID;
+                return new Slot(s.code(), s.expiresAt(), attempts);
+            }
+            out[0] = Result.OK;
+            return null;
+        });
+        return out[0];
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp.purge-ms:60000}")
+    public void purgeExpired() {
+        Instant now = Instant.now();
+        slots.values().removeIf(s -> !s.expiresAt().isAfter(now));
+    }
+
+    static boolean sameCode(String expected, String actual) {
+        return actual != null && MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.US_ASCII), actual.getBytes(StandardCharsets.US_ASCII));
+    }
+}
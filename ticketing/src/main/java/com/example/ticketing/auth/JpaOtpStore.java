@@ -0,0 +1,70 @@
+package com.example.ticketing.auth;
+
+import com.example.ticketing.user.User;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Codes OTP en base (table otp_codes), partagés entre instances.
+ * Les codes expirés ou consommés sont supprimés en masse périodiquement : la table reste
+ * de la taille des connexions en cours.
+ */
+@Component
+@ConditionalOnProperty(name = "app.otp.store", havingValue = "db")
+public class JpaOtpStore implements OtpStore {
+
+    private static final Logger log = LoggerFactory.getLogger(JpaOtpStore.class);
+
+    private final OtpCodeRepository otps;
+    private final int maxAttempts;
+
+    public JpaOtpStore(OtpCodeRepository otps, @Value("${app.otp.max-attempts:5}") int maxAttempts) {
+        this.otps = otps;
+        this.maxAttempts = maxAttempts;
+    }
+
+    @Override
+    @Transactional
+    public void issue(User user, String code, Instant expiresAt) {
+        otps.save(OtpCode.builder()
+                .user(user)
+                .code(code)
+                .expiresAt(expiresAt)
+                .attempts(0)
+                .build());
+    }
+
+    /* Lecture verrouillée : compteur d'essais et consommation sont lus et écrits sous le même verrou */
+    @Override
+    @Transactional
+    public Result verify(User user, String code) {
+        OtpCode last = otps.findTopByUserIdOrderByIdDesc(user.getId()).orElse(null);
+        if (last == null) return Result.NOT_FOUND;
+        if (!last.isValidNow()) return Result.EXPIRED;
+
+        if (!InMemoryOtpStore.sameCode(last.getCode(), code)) {
+            int attempts = (last.getAttempts() == null ? 0 : last.getAttempts()) + 1;
+            last.setAttempts(attempts);
+            if (attempts >= maxAttempts) {
+                last.setConsumedAt(Instant.now()); // code brûlé
+                return Result.TOO_MANY_ATTEMPTS;
+            }
+            return Result.INVALID;
+        }
+        last.setConsumedAt(Instant.now());
+        return Result.OK;
+    }
+
+    @Scheduled(fixedDelayString = "${app.otp.purge-ms:60000}")
+    public void purgeExpired() {
+        int n = otps.purge(Instant.now());
+        if (n > 0) log.debug("{} codes OTP purgés", n);
+    }
+}
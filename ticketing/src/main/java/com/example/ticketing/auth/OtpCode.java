@@ -7,7 +7,7 @@ import lombok.*;
 import java.time.Instant;
 
 @Entity
-@Table(name = "otp_codes")
+@Table(name = "otp_codes", indexes = @Index(name = "ix_otp_codes_user_id", columnList = "user_id, id"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class OtpCode {
     @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -22,6 +22,9 @@ public class OtpCode {
     private Instant expiresAt;
     private Instant consumedAt;
 
+    // échecs de saisie ; le code est brûlé au-delà de app.otp.max-attempts
+    private Integer attempts;
+
     public boolean isValidNow() {
         return consumedAt == null && expiresAt != null && expiresAt.isAfter(Instant.now());
     }
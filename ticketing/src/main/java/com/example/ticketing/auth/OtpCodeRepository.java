@@ -1,10 +1,24 @@
 package com.example.ticketing.auth;
 
-import com.example.ticketing.user.User;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.Optional;
 
 public interface OtpCodeRepository extends JpaRepository<OtpCode, Long> {
-    Optional<OtpCode> findTopByUserOrderByIdDesc(User user);
+    /** Dernier code de l'utilisateur, verrouillé : les saisies concurrentes passent l'une après l'autre. */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<OtpCode> findTopByUserIdOrderByIdDesc(Long userId);
+
+    /** Suppression en masse des codes inutilisables (expirés ou déjà consommés). */
+    @Transactional
+    @Modifying
+    @Query("delete from OtpCode o where o.expiresAt < :now or o.consumedAt is not null")
+    int purge(@Param("now") Instant now);
 }
@@ -0,0 +1,19 @@
+package com.example.ticketing.auth;
+
+import com.example.ticketing.user.User;
+
+import java.time.Instant;
+
+/**
+ * Stockage des codes OTP : un code actif par utilisateur, remplacé à chaque login.
+ * Implémentation choisie par app.otp.store (memory | db).
+ */
+public interface OtpStore {
+
+    enum Result { OK, NOT_FOUND, EXPIRED, INVALID, TOO_MANY_ATTEMPTS }
+
+    void issue(User user, String code, Instant expiresAt);
+
+    /** Vérifie et consomme le code ; chaque échec compte comme une tentative. */
+    Result verify(User user, String code);
+}
@@ -0,0 +1,252 @@
+package com.example.ticketing.inventory;
+
+import com.example.ticketing.admin.dto.SalesStat;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.offer.OfferRepository;
+import com.example.ticketing.ticket.TicketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Stock restant par offre, réparti en tranches décrémentées par UPDATE conditionnel.
+ * Aucune survente possible : chaque décrément vérifie "remaining >= qty" dans la base,
+ * et les checkouts concurrents se répartissent sur les tranches au lieu d'une seule ligne.
+ */
+@Service
+public class InventoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(InventoryService.class);
+
+    private final OfferStockRepository stocks;
+    private final OfferRepository offers;
+    private final TicketRepository tickets;
+    private final int stripes;
+
+    public InventoryService(OfferStockRepository stocks,
+                            OfferRepository offers,
+                            TicketRepository tickets,
+                            @Value("${app.inventory.stripes:8}") int stripes) {
+        this.stocks = stocks;
+        this.offers = offers;
+        this.tickets = tickets;
+        this.stripes = Math.max(1, stripes);
+    }
+
+    /* ----------- Réservation ----------- */
+
+    /**
+     * Prélève le stock de plusieurs offres (offerId -> quantité) et compte la vente
+     * (billets, chiffre d'affaires au prix unitaire donné) dans le même UPDATE.
+     * Chaque UPDATE conditionnel est sa propre transaction : un verrou de tranche n'est
+     * jamais tenu pendant le reste du checkout. L'appelant rend le stock (et annule la vente)
+     * via {@link #release} si la commande échoue ensuite.
+     */
+    @Transactional(propagation = Propagation.NEVER)
+    public Reservation reserve(Map<Long, Integer> wanted, Map<Long, Integer> unitPriceCents) {
+        List<Reservation.Part> parts = new ArrayList<>();
+        try {
+            // ordre des ids : comportement déterministe pour les paniers multi-offres
+            new TreeMap<>(wanted).forEach((offerId, qty) ->
+                    takeInto(parts, offerId, qty, unitPriceCents.getOrDefault(offerId, 0)));
+        } catch (RuntimeException e) {
+            release(new Reservation(parts));
+            throw e;
+        }
+        return new Reservation(parts);
+    }
+
+    /** Rend au stock les quantités prélevées (commande annulée ou en échec). */
+    @Transactional
+    public void release(Reservation reservation) {
+        reservation.parts().stream()
+                .sorted(Comparator.comparing(Reservation.Part::offerId).thenComparing(Reservation.Part::stripe))
+                .forEach(p -> {
+                    // tranche supprimée entre-temps (nombre de tranches réduit) : on rend sur la tranche 0
+                    if (stocks.giveBack(p.offerId(), p.stripe(), p.qty(), p.amountCents()) == 0) {
+                        stocks.giveBack(p.offerId(), 0, p.qty(), p.amountCents());
+                    }
+                });
+    }
+
+    private void takeInto(List<Reservation.Part> parts, Long offerId, int qty, int unitPrice) {
+        if (qty <= 0) return;
+
+        // 1) une seule tranche tirée au hasard suffit dans la grande majorité des cas
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            int stripe = (start + i) % stripes;
+            if (stocks.take(offerId, stripe, qty, (long) qty * unitPrice) == 1) {
+                parts.add(new Reservation.Part(offerId, stripe, qty, (long) qty * unitPrice));
+                return;
+            }
+        }
+
+        // 2) sinon on complète sur plusieurs tranches ; l'appelant rend tout en cas d'échec.
+        //    Sans aucune tranche, l'offre n'a jamais été ouverte : ce n'est pas un manque de places.
+        List<Integer> existing = stocks.stripesOf(offerId);
+        if (existing.isEmpty()) {
+            throw new IllegalStateException("Aucune tranche de stock pour l'offre " + offerId);
+        }
+        int need = qty;
+        for (int i = 0; i < existing.size() && need > 0; i++) {
+            int stripe = existing.get(i);
+            Integer avail = stocks.remainingOf(offerId, stripe);
+            if (avail == null || avail <= 0) continue;
+            int part = Math.min(avail, need);
+            if (stocks.take(offerId, stripe, part, (long) part * unitPrice) == 1) {
+                parts.add(new Reservation.Part(offerId, stripe, part, (long) part * unitPrice));
+                need -= part;
+            }
+        }
+        if (need > 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Plus assez de places pour cette offre");
+        }
+    }
+
+    /* ----------- Cycle de vie du stock d'une offre ----------- */
+
+    /**
+     * Crée les tranches d'une offre, ou ramène une offre déjà ouverte au nombre de tranches
+     * configuré (app.inventory.stripes) sans perdre son restant ni ses compteurs.
+     */
+    @Transactional
+    public void open(Offer offer) {
+        List<OfferStock> rows = stocks.lockAll(offer.getId());
+        if (!rows.isEmpty()) {
+            if (rows.size() != stripes || rows.get(rows.size() - 1).getStripe() != stripes - 1) {
+                restripe(offer.getId(), rows);
+            }
+            return;
+        }
+
+        Integer capacity = offer.getCapacity();
+        Integer initial = capacity == null ? null
+                : Math.max(0, capacity - (int) tickets.countByOfferId(offer.getId()));
+        for (int s = 0; s < stripes; s++) {
+            stocks.save(OfferStock.builder()
+                    .offerId(offer.getId())
+                    .stripe(s)
+                    .remaining(share(initial, s))
+                    .sold(0L)
+                    .revenueCents(0L)
+                    .consumed(0L)
+                    .build());
+        }
+    }
+
+    /** Applique un changement de capacité décidé par l'admin (delta sur le restant). */
+    @Transactional
+    public void resize(Long offerId, Integer oldCapacity, Integer newCapacity) {
+        if (Objects.equals(oldCapacity, newCapacity)) return;
+
+        List<OfferStock> rows = stocks.lockAll(offerId);
+        Integer total;
+        if (newCapacity == null) {
+            total = null;
+        } else if (oldCapacity == null) {
+            // "sold" compte aussi les paniers retenus et les commandes encore en émission
+            long sold = rows.stream().mapToLong(r -> r.getSold() == null ? 0 : r.getSold()).sum();
+            total = (int) Math.max(0, newCapacity - sold);
+        } else {
+            int current = rows.stream().mapToInt(r -> r.getRemaining() == null ? 0 : r.getRemaining()).sum();
+            total = Math.max(0, current + newCapacity - oldCapacity);
+        }
+        for (OfferStock r : rows) {
+            r.setRemaining(share(total, r.getStripe()));
+        }
+        stocks.saveAll(rows);
+    }
+
+    @Transactional
+    public void drop(Long offerId) {
+        stocks.deleteByOfferId(offerId);
+    }
+
+    @Transactional(readOnly = true)
+    public Long remaining(Long offerId) {
+        return stocks.totalRemaining(offerId);
+    }
+
+    /* ----------- Compteurs de ventes ----------- */
+
+    /** Billets contrôlés à l'entrée ; appelé dans la transaction de consommation. */
+    @Transactional
+    public void recordConsumed(Long offerId, long n) {
+        if (offerId == null || n <= 0) return;
+        stocks.addConsumed(offerId, ThreadLocalRandom.current().nextInt(stripes), n);
+    }
+
+    /** Ventes par offre : somme des tranches, sans parcourir la table ticket. */
+    @Transactional(readOnly = true)
+    public List<SalesStat> sales() {
+        return stocks.salesByOffer();
+    }
+
+    /* Offres créées hors admin (seed, SQL) : on crée leurs tranches au démarrage,
+       et on reprend les compteurs depuis la table ticket s'ils n'ont jamais été tenus */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void openMissing() {
+        for (Offer offer : offers.findAll()) {
+            open(offer);
+            if (stocks.totalSold(offer.getId()) == 0) {
+                long sold = tickets.countByOfferId(offer.getId());
+                if (sold > 0) {
+                    // prix actuel : l'historique des prix n'est pas conservé
+                    stocks.resetCounters(offer.getId(), sold, sold * offer.getPriceCents(),
+                            tickets.countByOfferIdAndConsumedAtIsNotNull(offer.getId()));
+                }
+            }
+        }
+    }
+
+    /* Restant redistribué sur les tranches configurées ; compteurs de ventes regroupés sur la tranche 0 */
+    private void restripe(Long offerId, List<OfferStock> rows) {
+        Integer total = rows.stream().anyMatch(r -> r.getRemaining() == null) ? null
+                : rows.stream().mapToInt(OfferStock::getRemaining).sum();
+        long sold = 0, revenue = 0, consumed = 0;
+        for (OfferStock r : rows) {
+            sold += r.getSold() == null ? 0 : r.getSold();
+            revenue += r.getRevenueCents() == null ? 0 : r.getRevenueCents();
+            consumed += r.getConsumed() == null ? 0 : r.getConsumed();
+        }
+
+        Map<Integer, OfferStock> byStripe = rows.stream()
+                .collect(Collectors.toMap(OfferStock::getStripe, Function.identity()));
+        stocks.deleteAll(rows.stream().filter(r -> r.getStripe() >= stripes).toList());
+        List<OfferStock> kept = new ArrayList<>();
+        for (int s = 0; s < stripes; s++) {
+            OfferStock row = byStripe.getOrDefault(s, OfferStock.builder().offerId(offerId).stripe(s).build());
+            row.setRemaining(share(total, s));
+            row.setSold(s == 0 ? sold : 0L);
+            row.setRevenueCents(s == 0 ? revenue : 0L);
+            row.setConsumed(s == 0 ? consumed : 0L);
+            kept.add(row);
+        }
+        stocks.saveAll(kept);
+        log.info("Offre {} : {} tranches de stock ramenées à {}", offerId, rows.size(), stripes);
+    }
+
+    private Integer share(Integer total, int stripe) {
+        if (total == null) return null;
+        return total / stripes + (stripe < total % stripes ? 1 : 0);
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.ticketing.inventory;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Tranche ("stripe") du stock restant d'une offre.
+ * Le stock est réparti sur plusieurs lignes pour que les checkouts concurrents
+ * ne se sérialisent pas tous sur le même verrou de ligne. Chaque tranche porte aussi
+ * ses compteurs de ventes : les statistiques sont la somme des tranches.
+ */
+@Entity
+@Table(
+        name = "offer_stock",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_offer_stock_stripe", columnNames = {"offer_id", "stripe"})
+        }
+)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class OfferStock {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "offer_id", nullable = false)
+    private Long offerId;
+
+    @Column(nullable = false)
+    private Integer stripe;
+
+    // null = offre sans limite de capacité
+    private Integer remaining;
+
+    /* Compteurs de ventes de la tranche, tenus à jour par les mêmes UPDATE que le stock */
+    private Long sold;
+
+    @Column(name = "revenue_cents")
+    private Long revenueCents;
+
+    private Long consumed;
+}
@@ -0,0 +1,110 @@
+package com.example.ticketing.inventory;
+
+import com.example.ticketing.admin.dto.SalesStat;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+public interface OfferStockRepository extends JpaRepository<OfferStock, Long> {
+
+    /* -------- Décrément conditionnel : ne descend jamais sous zéro -------- */
+    @Transactional
+    @Modifying
+    @Query("""
+        update OfferStock s
+           set s.remaining = s.remaining - :qty,
+               s.sold = coalesce(s.sold, 0) + :qty,
+               s.revenueCents = coalesce(s.revenueCents, 0) + :amount
+         where s.offerId = :offerId
+           and s.stripe = :stripe
+           and (s.remaining is null or s.remaining >= :qty)
+        """)
+    int take(@Param("offerId") Long offerId, @Param("stripe") int stripe,
+             @Param("qty") int qty, @Param("amount") long amountCents);
+
+    @Transactional
+    @Modifying
+    @Query("""
+        update OfferStock s
+           set s.remaining = s.remaining + :qty,
+               s.sold = coalesce(s.sold, 0) - :qty,
+               s.revenueCents = coalesce(s.revenueCents, 0) - :amount
+         where s.offerId = :offerId
+           and s.stripe = :stripe
+        """)
+    int giveBack(@Param("offerId") Long offerId, @Param("stripe") int stripe,
+                 @Param("qty") int qty, @Param("amount") long amountCents);
+
+    @Transactional
+    @Modifying
+    @Query("""
+        update OfferStock s
+           set s.consumed = coalesce(s.consumed, 0) + :n
+         where s.offerId = :offerId
+           and s.stripe = :stripe
+        """)
+    int addConsumed(@Param("offerId") Long offerId, @Param("stripe") int stripe, @Param("n") long n);
+
+    /* -------- Reprise des compteurs depuis la table ticket (tranche 0) -------- */
+    @Transactional
+    @Modifying
+    @Query("""
+        update OfferStock s
+           set s.sold = case when s.stripe = 0 then :sold else 0 end,
+               s.revenueCents = case when s.stripe = 0 then :revenue else 0 end,
+               s.consumed = case when s.stripe = 0 then :consumed else 0 end
+         where s.offerId = :offerId
+        """)
+    int resetCounters(@Param("offerId") Long offerId, @Param("sold") long sold,
+                      @Param("revenue") long revenueCents, @Param("consumed") long consumed);
+
+    @Query("select coalesce(sum(coalesce(s.sold, 0)), 0) from OfferStock s where s.offerId = :offerId")
+    long totalSold(@Param("offerId") Long offerId);
+
+    /* -------- Statistiques : O(offres × tranches), indépendant du nombre de billets -------- */
+    @Query("""
+        select new com.example.ticketing.admin.dto.SalesStat(
+            o.id, o.name,
+            coalesce(sum(s.sold), 0), coalesce(sum(s.revenueCents), 0), coalesce(sum(s.consumed), 0)
+        )
+          from OfferStock s
+          join Offer o on o.id = s.offerId
+      group by o.id, o.name
+      order by o.id asc
+        """)
+    List<SalesStat> salesByOffer();
+
+    /* -------- Lecture directe (hors cache de session) du restant d'une tranche -------- */
+    @Query("""
+        select s.remaining
+          from OfferStock s
+         where s.offerId = :offerId
+           and s.stripe = :stripe
+        """)
+    Integer remainingOf(@Param("offerId") Long offerId, @Param("stripe") int stripe);
+
+    @Query("select s.stripe from OfferStock s where s.offerId = :offerId order by s.stripe asc")
+    List<Integer> stripesOf(@Param("offerId") Long offerId);
+
+    @Query("""
+        select sum(s.remaining)
+          from OfferStock s
+         where s.offerId = :offerId
+        """)
+    Long totalRemaining(@Param("offerId") Long offerId);
+
+    /* -------- Opérations admin : verrouille toutes les tranches -------- */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from OfferStock s where s.offerId = :offerId order by s.stripe asc")
+    List<OfferStock> lockAll(@Param("offerId") Long offerId);
+
+    @Modifying
+    @Query("delete from OfferStock s where s.offerId = :offerId")
+    int deleteByOfferId(@Param("offerId") Long offerId);
+}
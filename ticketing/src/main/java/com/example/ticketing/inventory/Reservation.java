@@ -0,0 +1,9 @@
+package com.example.ticketing.inventory;
+
+import java.util.List;
+
+/** Quantités prélevées tranche par tranche, pour pouvoir les rendre à l'identique. */
+public record Reservation(List<Part> parts) {
+
+    public record Part(Long offerId, int stripe, int qty, long amountCents) {}
+}
@@ -2,6 +2,7 @@ package com.example.ticketing.offer;
 
 import com.example.ticketing.offer.dto.OfferUpsertRequest;
 import com.example.ticketing.ticket.TicketRepository;
+import com.example.ticketing.util.KeysetPage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
@@ -18,11 +19,17 @@ public class AdminOfferController {
 
     private final OfferRepository offers;
     private final TicketRepository tickets;
+    private final OfferService offerService;
+    private final OfferCatalog catalog;
 
     /* =============== LIST =============== */
+    // paginé par curseur (id croissant), page suivante via l'en-tête X-Next-Cursor
     @GetMapping
-    public List<Offer> list() {
-        return offers.findAll();
+    public ResponseEntity<List<Offer>> list(@RequestParam(value = "cursor", required = false) Long cursor,
+                                            @RequestParam(value = "limit", required = false) Integer limit) {
+        int n = KeysetPage.limit(limit, 200);
+        var rows = offers.findByIdGreaterThanOrderByIdAsc(cursor == null ? 0L : cursor, KeysetPage.probe(n));
+        return KeysetPage.of(rows, n, Offer::getId).toResponse();
     }
 
     /* =============== CREATE =============== */
@@ -34,7 +41,8 @@ public class AdminOfferController {
         }
         Offer o = new Offer();
         apply(o, req);
-        offers.save(o);
+        o = offerService.create(o);
+        catalog.rebuild();
         return ResponseEntity.created(URI.create("/api/admin/offers/" + o.getId()))
                 .body(o);
     }
@@ -48,8 +56,10 @@ public class AdminOfferController {
             return ResponseEntity.status(HttpStatus.CONFLICT)
                     .body(Map.of("error", "Ce code d’offre existe déjà."));
         }
+        Integer oldCapacity = o.getCapacity();
         apply(o, req);
-        offers.save(o);
+        o = offerService.update(o, oldCapacity);
+        catalog.rebuild();
         return ResponseEntity.ok(o);
     }
 
@@ -63,7 +73,8 @@ public class AdminOfferController {
                             "Suppression impossible : des billets existent pour cette offre. " +
                                     "Désactivez l’offre plutôt que de la supprimer."));
         }
-        offers.deleteById(id);
+        offerService.delete(id);
+        catalog.rebuild();
         return ResponseEntity.noContent().build();
     }
 
@@ -73,6 +84,7 @@ public class AdminOfferController {
         Offer o = offers.findById(id).orElseThrow();
         o.setActive(Boolean.TRUE.equals(body.get("active")));
         offers.save(o);
+        catalog.rebuild();
         return ResponseEntity.ok(o);
     }
 
@@ -82,6 +94,7 @@ public class AdminOfferController {
         o.setName(r.name().trim());
         o.setDescription(r.description() == null ? "" : r.description().trim());
         o.setSeats(r.seats());
+        o.setCapacity(r.capacity());
         o.setPriceCents(r.priceCents());
         o.setActive(Boolean.TRUE.equals(r.active()));
     }
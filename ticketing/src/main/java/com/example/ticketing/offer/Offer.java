@@ -29,5 +29,8 @@ public class Offer {
     @Column(nullable = false)
     private Integer priceCents;
 
+    // Nombre total de billets vendables (null = illimité), voir InventoryService
+    private Integer capacity;
+
     private Boolean active = true;
 }
@@ -0,0 +1,54 @@
+package com.example.ticketing.offer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Catalogue public des offres actives, pré-sérialisé en JSON.
+ * Reconstruit à chaque modification admin (et périodiquement, pour les changements faits
+ * ailleurs : SQL, autre instance) ; la lecture ne touche ni la base ni Jackson.
+ */
+@Component
+public class OfferCatalog {
+
+    public record Snapshot(byte[] json, String etag) {}
+
+    private final OfferRepository offers;
+    private final ObjectMapper mapper;
+    private volatile Snapshot snapshot;
+
+    public OfferCatalog(OfferRepository offers, ObjectMapper mapper) {
+        this.offers = offers;
+        this.mapper = mapper;
+    }
+
+    public Snapshot current() {
+        Snapshot s = snapshot;
+        return s != null ? s : rebuild();
+    }
+
+    /** synchronized : deux reconstructions concurrentes ne peuvent pas publier dans le désordre. */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.offers.catalog-refresh-ms:60000}", initialDelayString = "${app.offers.catalog-refresh-ms:60000}")
+    public synchronized Snapshot rebuild() {
+        try {
+            byte[] json = mapper.writeValueAsBytes(offers.findByActiveTrueOrderByIdAsc());
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            // ETag dérivé du contenu : identique d'une instance à l'autre
+            String etag = "\"offers-" + HexFormat.of().formatHex(digest, 0, 8) + "\"";
+            Snapshot s = new Snapshot(json, etag);
+            snapshot = s;
+            return s;
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Catalogue des offres non sérialisable", e);
+        }
+    }
+}
@@ -1,22 +1,34 @@
 package com.example.ticketing.offer;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/offers")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "${app.cors.allowed-origins}")
 public class OfferController {
 
-    private final OfferRepository repo;
+    // le navigateur revalide à chaque fois, la réponse 304 ne coûte presque rien
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePublic();
+
+    private final OfferCatalog catalog;
 
-    @GetMapping
-    public List<Offer> list() {
-        return repo.findAll().stream()
-                .filter(o -> Boolean.TRUE.equals(o.getActive()))
-                .toList();
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<byte[]> list(@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        OfferCatalog.Snapshot s = catalog.current();
+        if (ifNoneMatch != null && ifNoneMatch.contains(s.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(s.etag()).cacheControl(REVALIDATE).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(s.etag())
+                .cacheControl(REVALIDATE)
+                .body(s.json());
     }
 }
@@ -1,7 +1,14 @@
 package com.example.ticketing.offer;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
+import java.util.List;
+
 public interface OfferRepository extends JpaRepository<Offer, Long> {
     boolean existsByCodeIgnoreCase(String code);
+
+    List<Offer> findByActiveTrueOrderByIdAsc();
+
+    List<Offer> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable page);
 }
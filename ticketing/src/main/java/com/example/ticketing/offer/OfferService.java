@@ -0,0 +1,38 @@
+package com.example.ticketing.offer;
+
+import com.example.ticketing.inventory.InventoryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Écritures admin sur les offres : l'offre et ses tranches de stock changent dans la même
+ * transaction (jamais d'offre vendable sans stock, ni de stock orphelin).
+ */
+@Service
+@RequiredArgsConstructor
+public class OfferService {
+
+    private final OfferRepository offers;
+    private final InventoryService inventory;
+
+    @Transactional
+    public Offer create(Offer offer) {
+        Offer saved = offers.save(offer);
+        inventory.open(saved);
+        return saved;
+    }
+
+    @Transactional
+    public Offer update(Offer offer, Integer oldCapacity) {
+        Offer saved = offers.save(offer);
+        inventory.resize(saved.getId(), oldCapacity, saved.getCapacity());
+        return saved;
+    }
+
+    @Transactional
+    public void delete(Long offerId) {
+        inventory.drop(offerId);
+        offers.deleteById(offerId);
+    }
+}
@@ -10,5 +10,6 @@ public record OfferUpsertRequest(
         @Size(max = 1024) String description,
         @Min(0) int priceCents,
         @Min(1) int seats,
+        @Min(0) Integer capacity,
         Boolean active
 ) {}
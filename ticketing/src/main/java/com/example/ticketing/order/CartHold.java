@@ -0,0 +1,52 @@
+package com.example.ticketing.order;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Places retenues pour un panier le temps du paiement.
+ * HELD -> CONFIRMED (billets émis) | RELEASED (annulé) | EXPIRED (TTL dépassé, stock rendu).
+ */
+@Entity
+@Table(
+        name = "cart_hold",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_cart_hold_token", columnNames = {"token"})},
+        indexes = {@Index(name = "ix_cart_hold_status_expires", columnList = "status, expires_at")}
+)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class CartHold {
+
+    public enum Status { HELD, CONFIRMED, RELEASED, EXPIRED }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 36)
+    private String token;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    // panier demandé (CheckoutRequest) et tranches prélevées (Reservation), en JSON
+    @Column(name = "request_json", nullable = false, length = 100_000)
+    private String requestJson;
+
+    @Column(name = "reservation_json", nullable = false, length = 100_000)
+    private String reservationJson;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
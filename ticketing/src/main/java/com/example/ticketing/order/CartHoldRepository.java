@@ -0,0 +1,50 @@
+package com.example.ticketing.order;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface CartHoldRepository extends JpaRepository<CartHold, Long> {
+
+    Optional<CartHold> findByToken(String token);
+
+    /* -------- Transition conditionnelle : une seule issue possible par réservation -------- */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        update CartHold h
+           set h.status = :to
+         where h.token = :token
+           and h.userId = :userId
+           and h.status = com.example.ticketing.order.CartHold.Status.HELD
+           and h.expiresAt > :now
+        """)
+    int leaveHeld(@Param("token") String token, @Param("userId") Long userId,
+                  @Param("to") CartHold.Status to, @Param("now") Instant now);
+
+    /* -------- Balayage des réservations expirées -------- */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+        select h from CartHold h
+         where h.token in :tokens
+           and h.status = com.example.ticketing.order.CartHold.Status.HELD
+           and h.expiresAt <= :now
+        """)
+    List<CartHold> lockExpired(@Param("tokens") Collection<String> tokens, @Param("now") Instant now);
+
+    @Query("""
+        select h.token from CartHold h
+         where h.status = com.example.ticketing.order.CartHold.Status.HELD
+           and h.expiresAt <= :now
+         order by h.expiresAt asc
+        """)
+    List<String> findExpiredTokens(@Param("now") Instant now, Pageable page);
+}
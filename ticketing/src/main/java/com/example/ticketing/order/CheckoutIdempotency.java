@@ -0,0 +1,224 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.order.dto.IssuedOrder;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Checkout idempotent (en-tête Idempotency-Key).
+ * En mémoire : un CompletableFuture par clé, partagé par les doublons concurrents qui attendent
+ * la première exécution. En base (checkout_key) : la clé réservée avant l'exécution, puis le
+ * résultat écrit dans la transaction du checkout ; les rejeux ne touchent ni le stock ni les billets.
+ */
+@Component
+public class CheckoutIdempotency {
+
+    private record Key(Long userId, String key) {}
+
+    private record Entry(String requestHash, CompletableFuture<IssuedOrder> result) {}
+
+    private final CheckoutKeyRepository keys;
+    private final ObjectMapper json;
+    private final Cache<Key, Entry> recent;
+    private final long waitMillis;
+    private final Duration pendingTimeout;
+    private final Duration retention;
+
+    public CheckoutIdempotency(CheckoutKeyRepository keys,
+                               ObjectMapper json,
+                               @Value("${app.checkout.idempotency.max-entries:10000}") long maxEntries,
+                               @Value("${app.checkout.idempotency.wait-ms:10000}") long waitMillis,
+                               @Value("${app.checkout.idempotency.pending-timeout-seconds:120}") long pendingTimeoutSeconds,
+                               @Value("${app.checkout.idempotency.retention-hours:24}") long retentionHours) {
+        this.keys = keys;
+        this.json = json;
+        this.waitMillis = waitMillis;
+        this.pendingTimeout = Duration.ofSeconds(pendingTimeoutSeconds);
+        this.retention = Duration.ofHours(retentionHours);
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .build();
+    }
+
+    public static void validate(String idempotencyKey) {
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 128) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key invalide (1 à 128 caractères)");
+        }
+    }
+
+    /** Résultat déjà produit (ou en cours de production) pour cette clé, sans rien exécuter. */
+    public Optional<IssuedOrder> lookup(Long userId, String key, CheckoutRequest req) {
+        String hash = fingerprint(req);
+        Entry e = recent.getIfPresent(new Key(userId, key));
+        if (e != null) return Optional.of(await(e, hash));
+
+        return keys.findByUserIdAndIdemKey(userId, key)
+                .filter(k -> k.getResponseJson() != null)
+                .map(k -> {
+                    requireSameRequest(k.getRequestHash(), hash);
+                    return read(k.getResponseJson());
+                });
+    }
+
+    /**
+     * Exécute le checkout une seule fois par clé. {@code work} reçoit le callback à appeler
+     * dans sa transaction avec la commande émise.
+     */
+    public IssuedOrder execute(Long userId, String key, CheckoutRequest req,
+                               Function<Consumer<IssuedOrder>, IssuedOrder> work) {
+        String hash = fingerprint(req);
+        Key k = new Key(userId, key);
+        Entry mine = new Entry(hash, new CompletableFuture<>());
+        Entry first = recent.asMap().putIfAbsent(k, mine);
+        if (first != null) return await(first, hash);
+
+        try {
+            IssuedOrder result = claimAndRun(userId, key, hash, work);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            // échec (stock épuisé…) : un nouvel essai avec la même clé ré-exécutera
+            recent.asMap().remove(k, mine);
+            mine.result().completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.checkout.idempotency.purge-ms:3600000}")
+    public void purge() {
+        keys.purgeOlderThan(Instant.now().minus(retention));
+    }
+
+    /* ---------- Internes ---------- */
+
+    private IssuedOrder claimAndRun(Long userId, String key, String hash,
+                                    Function<Consumer<IssuedOrder>, IssuedOrder> work) {
+        CheckoutKey claimed = claim(userId, key, hash);
+        if (claimed.getResponseJson() != null) {
+            return read(claimed.getResponseJson()); // terminé par une autre instance
+        }
+        try {
+            return work.apply(issued -> {
+                if (keys.complete(claimed.getId(), claimed.getOwner(), issued.orderId(), write(issued)) == 0) {
+                    // reprise par une autre requête : la commande de celle-ci ne doit pas commiter
+                    throw new ResponseStatusException(HttpStatus.CONFLICT, "Commande identique en cours de traitement");
+                }
+            });
+        } catch (RuntimeException e) {
+            keys.release(claimed.getId(), claimed.getOwner());
+            throw e;
+        }
+    }
+
+    // INSERT de la clé : la contrainte unique départage les instances
+    private CheckoutKey claim(Long userId, String key, String hash) {
+        String owner = UUID.randomUUID().toString();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                return keys.saveAndFlush(CheckoutKey.builder()
+                        .userId(userId)
+                        .idemKey(key)
+                        .requestHash(hash)
+                        .owner(owner)
+                        .createdAt(Instant.now())
+                        .build());
+            } catch (DataIntegrityViolationException dup) {
+                CheckoutKey existing = keys.findByUserIdAndIdemKey(userId, key).orElse(null);
+                if (existing == null && attempt == 0) continue;
+                if (existing == null) throw dup;
+                requireSameRequest(existing.getRequestHash(), hash);
+                if (existing.getResponseJson() != null) return existing;
+                // réservation abandonnée (instance arrêtée en cours de checkout) : reprise seulement si
+                // personne ne l'a reprise ni terminée entre-temps ; l'ancienne ne pourra plus commiter
+                Instant now = Instant.now();
+                if (existing.getCreatedAt().isBefore(now.minus(pendingTimeout))
+                        && keys.takeOver(existing.getId(), existing.getCreatedAt(), owner, now) == 1) {
+                    existing.setOwner(owner);
+                    existing.setCreatedAt(now);
+                    return existing;
+                }
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "Commande identique en cours de traitement");
+            }
+        }
+    }
+
+    private IssuedOrder await(Entry e, String hash) {
+        requireSameRequest(e.requestHash(), hash);
+        try {
+            return e.result().get(waitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Commande identique en cours de traitement");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            // même réponse que la première exécution (409 stock épuisé, 404…)
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    private static void requireSameRequest(String expected, String actual) {
+        if (!expected.equals(actual)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key déjà utilisée pour un autre panier");
+        }
+    }
+
+    static String fingerprint(CheckoutRequest req) {
+        StringBuilder sb = new StringBuilder();
+        if (req != null && req.items() != null) {
+            for (CheckoutItem it : req.items()) {
+                sb.append(it.offerId()).append('x').append(it.quantity()).append(';');
+            }
+        }
+        try {
+            byte[] d = MessageDigest.getInstance("SHA-256").digest(sb.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(d);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private String write(IssuedOrder o) {
+        try {
+            return json.writeValueAsString(o);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private IssuedOrder read(String s) {
+        try {
+            return json.readValue(s, IssuedOrder.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
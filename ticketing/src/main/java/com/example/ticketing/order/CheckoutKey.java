@@ -0,0 +1,51 @@
+package com.example.ticketing.order;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Clé d'idempotence d'un checkout (en-tête Idempotency-Key), unique par utilisateur.
+ * responseJson null = exécution en cours ; sinon le résultat sérialisé, rejoué tel quel.
+ * owner identifie la réservation en cours : seule elle peut enregistrer le résultat.
+ */
+@Entity
+@Table(
+        name = "checkout_key",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_checkout_key_user_key", columnNames = {"user_id", "idem_key"})
+        },
+        indexes = {@Index(name = "ix_checkout_key_created_at", columnList = "created_at")}
+)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class CheckoutKey {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "idem_key", nullable = false, length = 128)
+    private String idemKey;
+
+    // empreinte du panier : une même clé ne peut pas servir pour un autre panier
+    @Column(name = "request_hash", nullable = false, length = 64)
+    private String requestHash;
+
+    // jeton de la réservation (reprise d'une réservation abandonnée = nouveau jeton)
+    @Column(name = "owner", length = 36)
+    private String owner;
+
+    @Column(name = "order_id")
+    private Long orderId;
+
+    @Column(name = "response_json", length = 1_000_000)
+    private String responseJson;
+
+    // date de la réservation (renouvelée à chaque reprise)
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -0,0 +1,58 @@
+package com.example.ticketing.order;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface CheckoutKeyRepository extends JpaRepository<CheckoutKey, Long> {
+
+    Optional<CheckoutKey> findByUserIdAndIdemKey(Long userId, String idemKey);
+
+    /*
+     * Résultat enregistré dans la transaction même du checkout : commande et clé commitent ensemble.
+     * 0 ligne : la réservation a été reprise entre-temps, le checkout doit être annulé.
+     */
+    @Transactional
+    @Modifying
+    @Query("""
+        update CheckoutKey k
+           set k.orderId = :orderId,
+               k.responseJson = :json
+         where k.id = :id
+           and k.owner = :owner
+           and k.responseJson is null
+        """)
+    int complete(@Param("id") Long id, @Param("owner") String owner,
+                 @Param("orderId") Long orderId, @Param("json") String json);
+
+    /* Reprise d'une réservation abandonnée : compare-and-set sur sa date, jamais si une commande existe */
+    @Transactional
+    @Modifying
+    @Query("""
+        update CheckoutKey k
+           set k.owner = :owner,
+               k.createdAt = :now
+         where k.id = :id
+           and k.createdAt = :claimedAt
+           and k.orderId is null
+           and k.responseJson is null
+        """)
+    int takeOver(@Param("id") Long id, @Param("claimedAt") Instant claimedAt,
+                 @Param("owner") String owner, @Param("now") Instant now);
+
+    /* Échec du checkout : libère la clé, sauf si elle a été reprise par une autre requête */
+    @Transactional
+    @Modifying
+    @Query("delete from CheckoutKey k where k.id = :id and k.owner = :owner and k.responseJson is null")
+    int release(@Param("id") Long id, @Param("owner") String owner);
+
+    @Transactional
+    @Modifying
+    @Query("delete from CheckoutKey k where k.createdAt < :before")
+    int purgeOlderThan(@Param("before") Instant before);
+}
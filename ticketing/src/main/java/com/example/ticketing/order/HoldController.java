@@ -0,0 +1,56 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.order.dto.CheckoutResponse;
+import com.example.ticketing.order.dto.HoldResponse;
+import com.example.ticketing.queue.AdmissionQueue;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * Checkout en deux temps : POST réserve les places (TTL), /confirm émet les billets,
+ * DELETE rend les places avant l'échéance.
+ */
+@RestController
+@RequestMapping("/api/order/holds")
+@RequiredArgsConstructor
+public class HoldController {
+
+    private final HoldService holdService;
+    private final AdmissionQueue admission;
+
+    @PostMapping
+    public ResponseEntity<HoldResponse> hold(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            @RequestBody CheckoutRequest req
+    ) {
+        // la file d'attente protège le prélèvement du stock, comme pour le checkout direct
+        try (var pass = admission.enter(queueToken, user.getId())) {
+            HoldResponse hold = holdService.hold(user, req);
+            pass.consume();
+            return ResponseEntity.status(HttpStatus.CREATED).body(hold);
+        }
+    }
+
+    @PostMapping("/{holdId}/confirm")
+    public ResponseEntity<CheckoutResponse> confirm(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @PathVariable String holdId,
+            @RequestParam(value = "qr", defaultValue = "inline") String qr
+    ) {
+        return ResponseEntity.ok(holdService.confirm(user, holdId, !"url".equalsIgnoreCase(qr)));
+    }
+
+    @DeleteMapping("/{holdId}")
+    public ResponseEntity<Void> release(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @PathVariable String holdId
+    ) {
+        holdService.release(user, holdId);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.inventory.InventoryService;
+import com.example.ticketing.inventory.Reservation;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.offer.OfferRepository;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.order.dto.CheckoutResponse;
+import com.example.ticketing.order.dto.HoldResponse;
+import com.example.ticketing.order.dto.IssuedOrder;
+import com.example.ticketing.user.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Réservation de panier en deux temps : les places sont prélevées au "hold" (stock décrémenté,
+ * comme un checkout), puis soit confirmées (billets émis), soit rendues (annulation ou TTL dépassé).
+ * Les échéances sont suivies en mémoire (DelayQueue) et vidées par lots ; un balayage périodique
+ * de la base rattrape les réservations d'une instance redémarrée.
+ */
+@Service
+public class HoldService {
+
+    private final CartHoldRepository holds;
+    private final OfferRepository offers;
+    private final InventoryService inventory;
+    private final OrderService orderService;
+    private final ObjectMapper json;
+    private final TransactionTemplate tx;
+    private final Duration ttl;
+    private final int batchSize;
+
+    private final DelayQueue<Expiry> due = new DelayQueue<>();
+
+    public HoldService(CartHoldRepository holds,
+                       OfferRepository offers,
+                       InventoryService inventory,
+                       OrderService orderService,
+                       ObjectMapper json,
+                       PlatformTransactionManager txManager,
+                       @Value("${app.holds.ttl-seconds:600}") long ttlSeconds,
+                       @Value("${app.holds.batch-size:200}") int batchSize) {
+        this.holds = holds;
+        this.offers = offers;
+        this.inventory = inventory;
+        this.orderService = orderService;
+        this.json = json;
+        this.tx = new TransactionTemplate(txManager);
+        this.ttl = Duration.ofSeconds(Math.max(1, ttlSeconds));
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /* ----------- Réserver ----------- */
+
+    public HoldResponse hold(User user, CheckoutRequest req) {
+        OrderService.Cart cart = orderService.prepare(req);
+
+        // 409 si épuisé ; rendu immédiatement si la réservation ne peut pas être enregistrée
+        Reservation taken = inventory.reserve(cart.wanted(), cart.prices());
+        Instant now = Instant.now();
+        CartHold hold;
+        try {
+            hold = holds.save(CartHold.builder()
+                    .token(UUID.randomUUID().toString())
+                    .userId(user.getId())
+                    .status(CartHold.Status.HELD)
+                    .requestJson(write(req))
+                    .reservationJson(write(taken))
+                    .createdAt(now)
+                    .expiresAt(now.plus(ttl))
+                    .build());
+        } catch (RuntimeException e) {
+            inventory.release(taken);
+            throw e;
+        }
+        due.add(new Expiry(hold.getToken(), hold.getExpiresAt().toEpochMilli()));
+        return new HoldResponse(hold.getToken(), hold.getExpiresAt(), req.items());
+    }
+
+    /* ----------- Confirmer ----------- */
+
+    /** Émet les billets sur les places déjà prélevées ; une réservation ne se confirme qu'une fois. */
+    public CheckoutResponse confirm(User user, String token, boolean inlineQr) {
+        IssuedOrder issued = tx.execute(status -> {
+            if (holds.leaveHeld(token, user.getId(), CartHold.Status.CONFIRMED, Instant.now()) == 0) {
+                throw refused(user, token);
+            }
+            CartHold hold = holds.findByToken(token).orElseThrow();
+            CheckoutRequest req = read(hold.getRequestJson(), CheckoutRequest.class);
+
+            Map<Long, Offer> offerCache = new HashMap<>();
+            for (Long offerId : offerIds(req)) {
+                offerCache.put(offerId, offers.findById(offerId)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.GONE, "Offre retirée")));
+            }
+            IssuedOrder o = orderService.issue(user, req, offerCache);
+            hold.setOrderId(o.orderId());
+            return o;
+        });
+        return orderService.render(issued, inlineQr);
+    }
+
+    /* ----------- Annuler ----------- */
+
+    /** Rend les places ; sans effet si la réservation est déjà rendue ou expirée. */
+    public void release(User user, String token) {
+        tx.executeWithoutResult(status -> {
+            if (holds.leaveHeld(token, user.getId(), CartHold.Status.RELEASED, Instant.now()) == 0) {
+                ResponseStatusException e = refused(user, token);
+                if (e.getStatusCode() == HttpStatus.GONE) return;
+                throw e;
+            }
+            CartHold hold = holds.findByToken(token).orElseThrow();
+            inventory.release(read(hold.getReservationJson(), Reservation.class));
+        });
+    }
+
+    /** Raison pour laquelle la réservation n'est plus (ou pas) disponible pour cet utilisateur. */
+    private ResponseStatusException refused(User user, String token) {
+        CartHold hold = holds.findByToken(token).orElse(null);
+        if (hold == null) {
+            return new ResponseStatusException(HttpStatus.NOT_FOUND, "Réservation inconnue");
+        }
+        if (!Objects.equals(hold.getUserId(), user.getId())) {
+            return new ResponseStatusException(HttpStatus.FORBIDDEN, "Accès interdit");
+        }
+        if (hold.getStatus() == CartHold.Status.CONFIRMED) {
+            return new ResponseStatusException(HttpStatus.CONFLICT, "Réservation déjà confirmée");
+        }
+        return new ResponseStatusException(HttpStatus.GONE, "Réservation expirée ou annulée");
+    }
+
+    /* ----------- Expiration ----------- */
+
+    /** Échéances vidées par lots : un verrou et un UPDATE par tranche pour tout le lot. */
+    @Scheduled(fixedDelayString = "${app.holds.sweep-ms:1000}")
+    void sweep() {
+        List<String> tokens = new ArrayList<>();
+        Expiry e;
+        while ((e = due.poll()) != null) {
+            tokens.add(e.token());
+            if (tokens.size() == batchSize) {
+                expire(tokens);
+                tokens.clear();
+            }
+        }
+        if (!tokens.isEmpty()) expire(tokens);
+    }
+
+    /* Filet de sécurité : réservations chargées par une autre instance ou perdues au redémarrage */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.holds.scan-ms:30000}", initialDelayString = "${app.holds.scan-ms:30000}")
+    void scan() {
+        List<String> tokens;
+        do {
+            tokens = holds.findExpiredTokens(Instant.now(), PageRequest.of(0, batchSize));
+            if (!tokens.isEmpty()) expire(tokens);
+        } while (tokens.size() == batchSize);
+    }
+
+    /** Passe les réservations échues en EXPIRED et rend leurs places, regroupées par tranche. */
+    int expire(Collection<String> tokens) {
+        Integer n = tx.execute(status -> {
+            List<CartHold> expired = holds.lockExpired(tokens, Instant.now());
+            if (expired.isEmpty()) return 0;
+
+            Map<List<Object>, Reservation.Part> merged = new LinkedHashMap<>();
+            for (CartHold hold : expired) {
+                hold.setStatus(CartHold.Status.EXPIRED);
+                for (Reservation.Part p : read(hold.getReservationJson(), Reservation.class).parts()) {
+                    merged.merge(List.of(p.offerId(), p.stripe()), p, (a, b) ->
+                            new Reservation.Part(a.offerId(), a.stripe(), a.qty() + b.qty(), a.amountCents() + b.amountCents()));
+                }
+            }
+            inventory.release(new Reservation(new ArrayList<>(merged.values())));
+            return expired.size();
+        });
+        return n == null ? 0 : n;
+    }
+
+    /* ----------- Internes ----------- */
+
+    private static Collection<Long> offerIds(CheckoutRequest req) {
+        return req.items().stream()
+                .filter(it -> it.quantity() > 0)
+                .map(it -> it.offerId())
+                .distinct()
+                .toList();
+    }
+
+    private String write(Object value) {
+        try {
+            return json.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String value, Class<T> type) {
+        try {
+            return json.readValue(value, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record Expiry(String token, long atMillis) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(atMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            return Long.compare(atMillis, ((Expiry) o).atMillis);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ticketing.order;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Émission différée des billets d'une commande (checkout asynchrone), écrite dans la
+ * transaction de la commande. PENDING -> RUNNING (réclamée par un worker) -> DONE | FAILED ;
+ * une ligne RUNNING trop ancienne est reprise (worker arrêté en cours de route).
+ */
+@Entity
+@Table(
+        name = "issuance_job",
+        uniqueConstraints = {@UniqueConstraint(name = "uk_issuance_job_order", columnNames = {"order_id"})},
+        indexes = {@Index(name = "ix_issuance_job_status_id", columnList = "status, id")}
+)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class IssuanceJob {
+
+    public enum Status { PENDING, RUNNING, DONE, FAILED }
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+
+    // panier (CheckoutRequest) et stock prélevé (Reservation), rendu si l'émission échoue
+    @Column(name = "request_json", nullable = false, length = 100_000)
+    private String requestJson;
+
+    @Column(name = "reservation_json", nullable = false, length = 100_000)
+    private String reservationJson;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "claimed_at")
+    private Instant claimedAt;
+
+    @Column(length = 500)
+    private String error;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
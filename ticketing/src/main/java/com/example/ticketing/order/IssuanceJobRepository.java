@@ -0,0 +1,50 @@
+package com.example.ticketing.order;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface IssuanceJobRepository extends JpaRepository<IssuanceJob, Long> {
+
+    /* -------- Réclamation conditionnelle : un seul worker par commande -------- */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        update IssuanceJob j
+           set j.status = com.example.ticketing.order.IssuanceJob.Status.RUNNING,
+               j.claimedAt = :now,
+               j.attempts = j.attempts + 1
+         where j.id = :id
+           and (j.status = com.example.ticketing.order.IssuanceJob.Status.PENDING
+                or (j.status = com.example.ticketing.order.IssuanceJob.Status.RUNNING and j.claimedAt < :staleBefore))
+        """)
+    int claim(@Param("id") Long id, @Param("now") Instant now, @Param("staleBefore") Instant staleBefore);
+
+    /* -------- Fin du job, seulement par le worker qui détient encore la réclamation -------- */
+    @Transactional
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        update IssuanceJob j
+           set j.status = :status, j.error = :error
+         where j.id = :id
+           and j.status = com.example.ticketing.order.IssuanceJob.Status.RUNNING
+           and j.claimedAt = :claimedAt
+        """)
+    int finish(@Param("id") Long id, @Param("claimedAt") Instant claimedAt,
+               @Param("status") IssuanceJob.Status status, @Param("error") String error);
+
+    /* -------- Rattrapage : jobs non soumis (file pleine, redémarrage) ou abandonnés -------- */
+    @Query("""
+        select j.id from IssuanceJob j
+         where j.status = com.example.ticketing.order.IssuanceJob.Status.PENDING
+            or (j.status = com.example.ticketing.order.IssuanceJob.Status.RUNNING and j.claimedAt < :staleBefore)
+         order by j.id asc
+        """)
+    List<Long> findClaimable(@Param("staleBefore") Instant staleBefore, Pageable page);
+}
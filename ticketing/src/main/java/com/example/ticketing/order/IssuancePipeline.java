@@ -0,0 +1,318 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.inventory.InventoryService;
+import com.example.ticketing.inventory.Reservation;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.offer.OfferRepository;
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.order.dto.IssuanceStatusResponse;
+import com.example.ticketing.order.dto.IssuedOrder;
+import com.example.ticketing.order.dto.IssuedTicket;
+import com.example.ticketing.ticket.TicketRepository;
+import com.example.ticketing.user.User;
+import com.example.ticketing.util.QrService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checkout asynchrone : la requête prélève le stock puis enregistre la commande (PENDING) et
+ * son job d'émission dans une seule transaction, et répond aussitôt. Un pool borné de workers
+ * traite ensuite les commandes une par une (clés, billets insérés en batch, QR pré-rendus).
+ * Les jobs qui ne tiennent pas dans la file restent en base et sont repris par le balayage
+ * périodique ; aucun courtier externe n'est nécessaire.
+ */
+@Component
+public class IssuancePipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(IssuancePipeline.class);
+
+    private final OrderService orderService;
+    private final IssuanceJobRepository jobs;
+    private final OrderRepository orders;
+    private final OfferRepository offers;
+    private final TicketRepository tickets;
+    private final InventoryService inventory;
+    private final QrService qrService;
+    private final ObjectMapper json;
+    private final TransactionTemplate tx;
+    private final ThreadPoolExecutor workers;
+    private final int maxAttempts;
+    private final int batchSize;
+    private final Duration staleAfter;
+    private final boolean prerenderQr;
+
+    // attentes des clients (SSE, tests) par commande ; oubliées après le délai d'abonnement
+    private final Cache<Long, CompletableFuture<IssuanceStatusResponse>> waiters;
+
+    private final Timer issueTimer;
+    private final Counter failed;
+
+    public IssuancePipeline(OrderService orderService,
+                            IssuanceJobRepository jobs,
+                            OrderRepository orders,
+                            OfferRepository offers,
+                            TicketRepository tickets,
+                            InventoryService inventory,
+                            QrService qrService,
+                            ObjectMapper json,
+                            PlatformTransactionManager txManager,
+                            MeterRegistry registry,
+                            @Value("${app.issuance.workers:2}") int threads,
+                            @Value("${app.issuance.queue-capacity:1000}") int queueCapacity,
+                            @Value("${app.issuance.max-attempts:3}") int maxAttempts,
+                            @Value("${app.issuance.batch-size:100}") int batchSize,
+                            @Value("${app.issuance.stale-seconds:120}") long staleSeconds,
+                            @Value("${app.issuance.prerender-qr:true}") boolean prerenderQr,
+                            @Value("${app.issuance.subscribe-timeout-ms:60000}") long subscribeTimeoutMillis) {
+        this.orderService = orderService;
+        this.jobs = jobs;
+        this.orders = orders;
+        this.offers = offers;
+        this.tickets = tickets;
+        this.inventory = inventory;
+        this.qrService = qrService;
+        this.json = json;
+        this.tx = new TransactionTemplate(txManager);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.batchSize = Math.max(1, batchSize);
+        this.staleAfter = Duration.ofSeconds(Math.max(1, staleSeconds));
+        this.prerenderQr = prerenderQr;
+
+        int size = Math.max(1, threads);
+        AtomicInteger n = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queueCapacity)),
+                r -> {
+                    Thread t = new Thread(r, "issuance-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.waiters = Caffeine.newBuilder()
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, subscribeTimeoutMillis)))
+                .build();
+
+        this.issueTimer = Timer.builder("order.issuance").register(registry);
+        this.failed = Counter.builder("order.issuance.failed").register(registry);
+        Gauge.builder("order.issuance.queue", workers, w -> w.getQueue().size()).register(registry);
+    }
+
+    /* ----------- Côté requête ----------- */
+
+    /** Prélève le stock (409 si épuisé), enregistre commande + job, et rend la main avant l'émission. */
+    public IssuanceStatusResponse accept(User user, CheckoutRequest req) {
+        OrderService.Cart cart = orderService.prepare(req);
+        Reservation held = inventory.reserve(cart.wanted(), cart.prices());
+        try {
+            Long orderId = tx.execute(status -> {
+                Order order = orderService.newOrder(user, Order.Status.PENDING);
+                IssuanceJob job = jobs.save(IssuanceJob.builder()
+                        .orderId(order.getId())
+                        .status(IssuanceJob.Status.PENDING)
+                        .requestJson(write(req))
+                        .reservationJson(write(held))
+                        .createdAt(Instant.now())
+                        .build());
+                // soumis au pool seulement une fois la commande visible des workers
+                Long jobId = job.getId();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        submit(jobId);
+                    }
+                });
+                return order.getId();
+            });
+            return new IssuanceStatusResponse(orderId, Order.Status.PENDING.name(), 0);
+        } catch (RuntimeException e) {
+            inventory.release(held);
+            throw e;
+        }
+    }
+
+    public IssuanceStatusResponse status(User user, Long orderId) {
+        orderService.requireOwnedOrder(orderId, user.getId());
+        return currentStatus(orderId);
+    }
+
+    /** Terminée (ISSUED ou FAILED) quand l'émission de la commande l'est, même si elle l'était déjà. */
+    public CompletableFuture<IssuanceStatusResponse> completion(Long orderId) {
+        CompletableFuture<IssuanceStatusResponse> f = waiters.get(orderId, id -> new CompletableFuture<>());
+        // relu après l'inscription : une émission terminée entre-temps n'est pas manquée
+        IssuanceStatusResponse now = currentStatus(orderId);
+        if (!Order.Status.PENDING.name().equals(now.status())) f.complete(now);
+        return f;
+    }
+
+    private IssuanceStatusResponse currentStatus(Long orderId) {
+        // status null : commande émise dans la requête (checkout synchrone)
+        Order.Status status = orders.findStatus(orderId).orElseGet(() -> {
+            if (!orders.existsById(orderId)) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Commande inconnue");
+            }
+            return Order.Status.ISSUED;
+        });
+        long count = status == Order.Status.PENDING ? 0 : tickets.countByOrderId(orderId);
+        return new IssuanceStatusResponse(orderId, status.name(), count);
+    }
+
+    /* ----------- Workers ----------- */
+
+    private void submit(Long jobId) {
+        try {
+            workers.execute(() -> process(jobId));
+        } catch (RejectedExecutionException e) {
+            // file pleine : le job reste PENDING et sera repris par le balayage
+            log.debug("File d'émission pleine, job {} différé", jobId);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.issuance.poll-ms:5000}", initialDelayString = "${app.issuance.poll-ms:5000}")
+    void poll() {
+        int room = workers.getQueue().remainingCapacity();
+        if (room == 0) return;
+        List<Long> ids = jobs.findClaimable(Instant.now().minus(staleAfter), PageRequest.of(0, Math.min(room, batchSize)));
+        ids.forEach(this::submit);
+    }
+
+    void process(Long jobId) {
+        // précision de la colonne : la comparaison de fin porte sur la valeur stockée
+        Instant claimedAt = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        if (jobs.claim(jobId, claimedAt, claimedAt.minus(staleAfter)) == 0) return; // déjà pris ou terminé
+        IssuanceJob job = jobs.findById(jobId).orElseThrow();
+
+        IssuedOrder issued;
+        try {
+            issued = issueTimer.record(() -> tx.execute(status -> {
+                // réclamation reprise par un autre worker (job jugé abandonné) : on annule tout
+                if (jobs.finish(jobId, claimedAt, IssuanceJob.Status.DONE, null) == 0) throw new LostClaim();
+                Order order = orders.lockById(job.getOrderId()).orElseThrow();
+                if (order.getStatus() != Order.Status.PENDING) return null; // déjà émise : job clos tel quel
+
+                CheckoutRequest req = read(job.getRequestJson(), CheckoutRequest.class);
+                IssuedOrder o = orderService.issueTickets(order, order.getUser().getKUser(), req, loadOffers(req));
+                order.setStatus(Order.Status.ISSUED);
+                return o;
+            }));
+        } catch (LostClaim e) {
+            log.debug("Job {} repris par un autre worker", jobId);
+            return;
+        } catch (RuntimeException e) {
+            retryOrFail(job, claimedAt, e);
+            return;
+        }
+        if (issued == null) return;
+
+        if (prerenderQr) {
+            // billets déjà visibles : le pré-rendu ne fait que chauffer le cache des QR
+            for (IssuedTicket t : issued.tickets()) qrService.generatePng(t.finalKey(), QrService.PNG_SIZE);
+        }
+        done(job.getOrderId());
+    }
+
+    private void retryOrFail(IssuanceJob job, Instant claimedAt, RuntimeException e) {
+        String error = String.valueOf(e.getMessage());
+        error = error.length() > 500 ? error.substring(0, 500) : error;
+        if (job.getAttempts() < maxAttempts) {
+            log.warn("Émission de la commande {} en échec (essai {}), nouvelle tentative", job.getOrderId(), job.getAttempts(), e);
+            jobs.finish(job.getId(), claimedAt, IssuanceJob.Status.PENDING, error);
+            return;
+        }
+        log.error("Émission de la commande {} abandonnée", job.getOrderId(), e);
+        String finalError = error;
+        Boolean failedNow = tx.execute(status -> {
+            if (jobs.finish(job.getId(), claimedAt, IssuanceJob.Status.FAILED, finalError) == 0) return false;
+            orders.lockById(job.getOrderId()).ifPresent(o -> o.setStatus(Order.Status.FAILED));
+            inventory.release(read(job.getReservationJson(), Reservation.class));
+            return true;
+        });
+        if (Boolean.TRUE.equals(failedNow)) {
+            failed.increment();
+            done(job.getOrderId());
+        }
+    }
+
+    private void done(Long orderId) {
+        CompletableFuture<IssuanceStatusResponse> f = waiters.getIfPresent(orderId);
+        if (f != null) {
+            waiters.invalidate(orderId);
+            f.complete(currentStatus(orderId));
+        }
+    }
+
+    /** Le job n'appartient plus à ce worker : transaction annulée, sans nouvel essai. */
+    private static final class LostClaim extends RuntimeException {
+        LostClaim() {
+            super(null, null, false, false);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+    }
+
+    /* ----------- Internes ----------- */
+
+    private Map<Long, Offer> loadOffers(CheckoutRequest req) {
+        Map<Long, Offer> offerCache = new HashMap<>();
+        for (CheckoutItem it : req.items()) {
+            if (it.quantity() <= 0 || offerCache.containsKey(it.offerId())) continue;
+            offerCache.put(it.offerId(), offers.findById(it.offerId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.GONE, "Offre retirée")));
+        }
+        return offerCache;
+    }
+
+    private String write(Object value) {
+        try {
+            return json.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T read(String value, Class<T> type) {
+        try {
+            return json.readValue(value, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
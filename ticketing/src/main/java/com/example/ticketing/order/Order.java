@@ -11,18 +11,27 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "ix_orders_user_id_id", columnList = "user_id, id"))
 @Getter @Setter
 public class Order {
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+
+    /** PENDING : billets en cours d'émission (checkout asynchrone) ; null = émis dans la requête. */
+    public enum Status { PENDING, ISSUED, FAILED }
+
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(optional = false)
+    @ManyToOne(optional = false, fetch = FetchType.LAZY)
     private User user;
 
     @Column(name="purchase_key", nullable=false, length=64)
     private String purchaseKey;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name="status", length=16)
+    private Status status;
+
     @Column(name="created_at", nullable=false)
     private Instant createdAt = Instant.now();
 
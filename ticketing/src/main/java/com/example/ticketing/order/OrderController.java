@@ -1,13 +1,25 @@
 package com.example.ticketing.order;
 
 import com.example.ticketing.order.dto.*;
-import com.example.ticketing.ticket.Ticket;
+import com.example.ticketing.queue.AdmissionQueue;
+import com.example.ticketing.security.TicketTokenService;
+import com.example.ticketing.util.KeysetPage;
+import com.example.ticketing.util.QrService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
 import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 @RestController
 @RequestMapping("/api/order")
@@ -15,39 +27,184 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
+    private final IssuancePipeline issuance;
+    private final AdmissionQueue admission;
+    private final QrService qrService;
+    private final TicketTokenService tokens;
+    private final ObjectMapper json;
+
+    private static final String NDJSON = "application/x-ndjson";
+    static final int STREAM_PAGE = 500;
+    private static final int ORDERS_PAGE = 50;
+    private static final int TICKETS_PAGE = 500;
+    private static final long STATUS_STREAM_TIMEOUT_MS = 60_000;
 
     @PostMapping("/checkout")
     public ResponseEntity<CheckoutResponse> checkout(
             @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestParam(value = "qr", defaultValue = "inline") String qr,
+            @RequestBody CheckoutRequest req
+    ) {
+        // qr=url : la réponse ne contient que les ids et URLs des QR (taille indépendante des PNG)
+        boolean inlineQr = !"url".equalsIgnoreCase(qr);
+
+        // nouvel essai d'un checkout déjà traité (ou en cours) : même réponse, sans repasser par la file
+        if (idempotencyKey != null) {
+            var replay = orderService.replay(user, req, inlineQr, idempotencyKey);
+            if (replay.isPresent()) {
+                return ResponseEntity.ok().header("Idempotent-Replayed", "true").body(replay.get());
+            }
+        }
+
+        // file d'attente active : seuls les acheteurs admis atteignent la base
+        try (var pass = admission.enter(queueToken, user.getId())) {
+            CheckoutResponse res = orderService.checkout(user, req, inlineQr, idempotencyKey);
+            pass.consume();
+            return ResponseEntity.ok(res);
+        }
+    }
+
+    /* ------------------ CHECKOUT ASYNCHRONE ------------------ */
+
+    /** Commande enregistrée, billets émis en arrière-plan : suivre /{orderId}/status. */
+    @PostMapping("/checkout/async")
+    public ResponseEntity<IssuanceStatusResponse> checkoutAsync(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @RequestHeader(value = "X-Queue-Token", required = false) String queueToken,
             @RequestBody CheckoutRequest req
     ) {
-        return ResponseEntity.ok(orderService.checkout(user, req));
+        try (var pass = admission.enter(queueToken, user.getId())) {
+            var accepted = issuance.accept(user, req);
+            pass.consume();
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.LOCATION, "/api/order/" + accepted.orderId() + "/status")
+                    .body(accepted);
+        }
+    }
+
+    @GetMapping("/{orderId}/status")
+    public IssuanceStatusResponse issuanceStatus(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @PathVariable Long orderId
+    ) {
+        return issuance.status(user, orderId);
+    }
+
+    /** Un seul évènement "issuance" quand l'émission se termine (tout de suite si c'est déjà fait). */
+    @GetMapping(value = "/{orderId}/status/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter issuanceStream(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @PathVariable Long orderId
+    ) {
+        orderService.requireOwnedOrder(orderId, user.getId());
+        SseEmitter emitter = new SseEmitter(STATUS_STREAM_TIMEOUT_MS);
+        issuance.completion(orderId).thenAccept(status -> {
+            try {
+                emitter.send(SseEmitter.event().name("issuance").data(status, MediaType.APPLICATION_JSON));
+                emitter.complete();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        });
+        return emitter;
     }
 
+    /* Listes paginées par curseur : page suivante via ?cursor=<X-Next-Cursor> (en-tête absent = fin) */
+
     @GetMapping("/orders")
     public ResponseEntity<List<OrdersListResponse>> myOrders(
-            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
     ) {
-        return ResponseEntity.ok(orderService.listOrdersForUser(user.getId()));
+        return orderService.listOrdersForUser(user.getId(), cursor, KeysetPage.limit(limit, ORDERS_PAGE))
+                .toResponse();
     }
 
     @GetMapping("/{orderId}/tickets")
     public ResponseEntity<List<TicketDto>> ticketsForOrder(
             @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
-            @PathVariable Long orderId
+            @PathVariable Long orderId,
+            @RequestParam(value = "cursor", required = false) Long cursor,
+            @RequestParam(value = "limit", required = false) Integer limit
     ) {
-        var tickets = orderService.listTicketsForOrder(orderId, user.getId());
+        var page = orderService.listTicketsForOrder(orderId, user.getId(), cursor, KeysetPage.limit(limit, TICKETS_PAGE));
 
-        var dtoList = tickets.stream()
+        var dtoList = page.items().stream()
                 .map(t -> new TicketDto(
-                        t.getId(),
-                        t.getOffer() != null ? t.getOffer().getId() : null,
-                        t.getOffer() != null ? t.getOffer().getName() : null,
-                        t.getFinalKey(),
-                        t.getConsumedAt()
+                        t.id(),
+                        t.offerId(),
+                        t.offerName(),
+                        t.finalKey(),
+                        t.consumedAt(),
+                        tokens.issue(t.id(), t.offerId())
                 ))
                 .toList();
 
-        return ResponseEntity.ok(dtoList);
+        return page.toResponse(dtoList);
+    }
+
+    /* ------------------ EXPORTS EN FLUX (grosses commandes) ------------------ */
+
+    @GetMapping(value = "/{orderId}/tickets.ndjson", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> ticketsNdjson(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @PathVariable Long orderId,
+            @RequestParam(value = "qr", defaultValue = "url") String qr
+    ) {
+        orderService.requireOwnedOrder(orderId, user.getId());
+        boolean inlineQr = "inline".equalsIgnoreCase(qr);
+
+        StreamingResponseBody body = out -> forEachPage(orderId, page -> {
+            for (IssuedTicket t : page) {
+                out.write(json.writeValueAsBytes(orderService.toTicketResponse(t, inlineQr)));
+                out.write('\n');
+            }
+            out.flush();
+        });
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+    }
+
+    @GetMapping(value = "/{orderId}/tickets.zip", produces = "application/zip")
+    public ResponseEntity<StreamingResponseBody> ticketsZip(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+            @PathVariable Long orderId
+    ) {
+        orderService.requireOwnedOrder(orderId, user.getId());
+
+        StreamingResponseBody body = out -> {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            forEachPage(orderId, page -> {
+                for (IssuedTicket t : page) {
+                    zip.putNextEntry(new ZipEntry("ticket-" + t.ticketId() + ".png"));
+                    zip.write(qrService.generatePng(t.finalKey(), QrService.PNG_SIZE));
+                    zip.closeEntry();
+                }
+                zip.flush();
+            });
+            zip.finish();
+        };
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"commande-" + orderId + ".zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    private void forEachPage(Long orderId, PageWriter writer) throws IOException {
+        Long after = 0L;
+        List<IssuedTicket> page;
+        do {
+            page = orderService.ticketPage(orderId, after, STREAM_PAGE);
+            if (page.isEmpty()) break;
+            writer.write(page);
+            after = page.get(page.size() - 1).ticketId();
+        } while (page.size() == STREAM_PAGE);
+    }
+
+    @FunctionalInterface
+    private interface PageWriter {
+        void write(List<IssuedTicket> page) throws IOException;
     }
 }
@@ -1,8 +1,37 @@
 package com.example.ticketing.order;
 
+import com.example.ticketing.order.dto.OrdersListResponse;
+import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    List<Order> findByUserIdOrderByIdDesc(Long userId);
+    @Query("""
+        select new com.example.ticketing.order.dto.OrdersListResponse(o.id, o.createdAt)
+          from Order o
+         where o.user.id = :userId
+           and o.id < :beforeId
+         order by o.id desc
+        """)
+    List<OrdersListResponse> findSummariesByUserId(@Param("userId") Long userId,
+                                                   @Param("beforeId") Long beforeId,
+                                                   Pageable page);
+
+    /** Propriétaire d'une commande, sans charger la commande ni l'utilisateur. */
+    @Query("select o.user.id from Order o where o.id = :orderId")
+    Optional<Long> findOwnerId(@Param("orderId") Long orderId);
+
+    /** État d'émission ; vide aussi pour une commande émise dans la requête (status null). */
+    @Query("select o.status from Order o where o.id = :orderId")
+    Optional<Order.Status> findStatus(@Param("orderId") Long orderId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from Order o where o.id = :orderId")
+    Optional<Order> lockById(@Param("orderId") Long orderId);
 }
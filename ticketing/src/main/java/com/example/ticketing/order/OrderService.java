@@ -1,27 +1,41 @@
 package com.example.ticketing.order;
 
+import com.example.ticketing.inventory.InventoryService;
+import com.example.ticketing.inventory.Reservation;
 import com.example.ticketing.offer.Offer;
 import com.example.ticketing.offer.OfferRepository;
 import com.example.ticketing.order.dto.CheckoutItem;
 import com.example.ticketing.order.dto.CheckoutRequest;
 import com.example.ticketing.order.dto.CheckoutResponse;
+import com.example.ticketing.order.dto.IssuedOrder;
+import com.example.ticketing.order.dto.IssuedTicket;
 import com.example.ticketing.order.dto.OrdersListResponse;
 import com.example.ticketing.order.dto.TicketResponse;
+import com.example.ticketing.outbox.Outbox;
 import com.example.ticketing.ticket.Ticket;
+import com.example.ticketing.ticket.TicketKeyGenerator;
 import com.example.ticketing.ticket.TicketRepository;
+import com.example.ticketing.ticket.TicketRow;
 import com.example.ticketing.user.User;
+import com.example.ticketing.util.KeysetPage;
 import com.example.ticketing.util.QrService;
 import jakarta.transaction.Transactional;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.security.MessageDigest;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.HexFormat;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class OrderService {
@@ -30,105 +44,213 @@ public class OrderService {
     private final OfferRepository offers;
     private final TicketRepository ticketRepo;
     private final QrService qrService;
+    private final InventoryService inventory;
+    private final CheckoutIdempotency idempotency;
+    private final Outbox outbox;
+    private final TicketKeyGenerator keys;
+    private final TransactionTemplate tx;
 
     public OrderService(OrderRepository orders,
                         OfferRepository offers,
                         TicketRepository ticketRepo,
-                        QrService qrService) {
+                        QrService qrService,
+                        InventoryService inventory,
+                        CheckoutIdempotency idempotency,
+                        Outbox outbox,
+                        TicketKeyGenerator keys,
+                        PlatformTransactionManager txManager) {
         this.orders = orders;
         this.offers = offers;
         this.ticketRepo = ticketRepo;
         this.qrService = qrService;
+        this.inventory = inventory;
+        this.idempotency = idempotency;
+        this.outbox = outbox;
+        this.keys = keys;
+        this.tx = new TransactionTemplate(txManager);
     }
 
     /* ------------------ CHECKOUT ------------------ */
 
-    @Transactional
     public CheckoutResponse checkout(User user, CheckoutRequest req) {
+        return checkout(user, req, true);
+    }
+
+    /**
+     * @param inlineQr true : PNG en base64 dans la réponse (historique) ;
+     *                 false : seulement l'URL du QR, rendu à la demande par /api/tickets/{id}/qr.png
+     */
+    public CheckoutResponse checkout(User user, CheckoutRequest req, boolean inlineQr) {
+        return render(place(user, req, null), inlineQr);
+    }
+
+    /**
+     * Checkout idempotent : une même Idempotency-Key (par utilisateur) ne crée qu'une commande ;
+     * les doublons attendent la première exécution puis en reçoivent le résultat.
+     */
+    public CheckoutResponse checkout(User user, CheckoutRequest req, boolean inlineQr, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return checkout(user, req, inlineQr);
+        }
+        CheckoutIdempotency.validate(idempotencyKey);
+        IssuedOrder issued = idempotency.execute(user.getId(), idempotencyKey, req,
+                onIssued -> place(user, req, onIssued));
+        return render(issued, inlineQr);
+    }
+
+    /** Réponse déjà produite pour cette Idempotency-Key, reconstruite sans lecture des billets. */
+    public Optional<CheckoutResponse> replay(User user, CheckoutRequest req, boolean inlineQr, String idempotencyKey) {
+        CheckoutIdempotency.validate(idempotencyKey);
+        return idempotency.lookup(user.getId(), idempotencyKey, req).map(o -> render(o, inlineQr));
+    }
+
+    /** @param onIssued appelé dans la transaction d'émission (null : rien) */
+    private IssuedOrder place(User user, CheckoutRequest req, Consumer<IssuedOrder> onIssued) {
+        Cart cart = prepare(req);
+        Map<Long, Offer> offerCache = cart.offers();
+
+        // Stock prélevé (et vente comptée) hors transaction (409 si épuisé), rendu si l'émission échoue
+        Reservation held = inventory.reserve(cart.wanted(), cart.prices());
+        IssuedOrder issued;
+        try {
+            issued = tx.execute(status -> {
+                IssuedOrder o = issue(user, req, offerCache);
+                if (onIssued != null) onIssued.accept(o);
+                return o;
+            });
+        } catch (RuntimeException e) {
+            inventory.release(held);
+            throw e;
+        }
+        return issued;
+    }
+
+    /** Panier validé : quantités par offre, offres chargées une fois, prix unitaires. */
+    record Cart(Map<Long, Integer> wanted, Map<Long, Offer> offers, Map<Long, Integer> prices) {}
+
+    Cart prepare(CheckoutRequest req) {
         if (req == null || req.items() == null || req.items().isEmpty()) {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Panier vide");
         }
 
+        Map<Long, Integer> wanted = new HashMap<>();
+        for (CheckoutItem it : req.items()) {
+            if (it.quantity() <= 0) continue;
+            if (it.offerId() == null) {
+                throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Offre inconnue");
+            }
+            wanted.merge(it.offerId(), it.quantity(), Integer::sum);
+        }
+        Map<Long, Offer> offerCache = new HashMap<>();
+        Map<Long, Integer> prices = new HashMap<>();
+        for (Long offerId : wanted.keySet()) {
+            Offer offer = offers.findById(offerId)
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Offre inconnue"));
+            offerCache.put(offerId, offer);
+            prices.put(offerId, offer.getPriceCents());
+        }
+        return new Cart(wanted, offerCache, prices);
+    }
+
+    // QR rendus après le commit : la transaction ne dure pas plus longtemps pour une grosse commande
+    CheckoutResponse render(IssuedOrder issued, boolean inlineQr) {
+        return new CheckoutResponse(
+                issued.orderId(),
+                issued.tickets().stream().map(t -> toTicketResponse(t, inlineQr)).toList()
+        );
+    }
+
+    public TicketResponse toTicketResponse(IssuedTicket t, boolean inlineQr) {
+        String base64 = inlineQr
+                ? Base64.getEncoder().encodeToString(qrService.generatePng(t.finalKey(), QrService.PNG_SIZE))
+                : null;
+        return new TicketResponse(t.ticketId(), t.offerId(), base64, "/api/tickets/" + t.ticketId() + "/qr.png");
+    }
+
+    /** Crée la commande et ses billets ; à appeler dans une transaction. */
+    IssuedOrder issue(User user, CheckoutRequest req, Map<Long, Offer> offerCache) {
+        return issueTickets(newOrder(user, null), user.getKUser(), req, offerCache);
+    }
+
+    /** Commande sans billets (status null : billets émis dans la même transaction). */
+    Order newOrder(User user, Order.Status status) {
         Order order = new Order();
         order.setUser(user);
         order.setPurchaseKey(UUID.randomUUID().toString());
-        orders.save(order);
+        order.setStatus(status);
+        return orders.save(order);
+    }
 
+    /** Billets d'une commande déjà enregistrée ; à appeler dans une transaction. */
+    IssuedOrder issueTickets(Order order, String kUser, CheckoutRequest req, Map<Long, Offer> offerCache) {
+        // Tickets construits en mémoire puis insérés en batch (ids issus de la séquence)
+        List<Ticket> tickets = new ArrayList<>();
         long idx = 0;
         for (CheckoutItem it : req.items()) {
             int qty = Math.max(0, it.quantity());
             if (qty <= 0) continue;
 
-            Offer offer = offers.findById(it.offerId())
-                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Offre inconnue"));
+            Offer offer = offerCache.get(it.offerId());
 
             for (int i = 0; i < qty; i++) {
-                String fk = generateFinalKey(
-                        user.getKUser(),
+                String fk = keys.generate(
+                        kUser,
                         order.getPurchaseKey(),
                         offer.getId(),
                         idx++
                 );
-                Ticket t = Ticket.builder()
+                tickets.add(Ticket.builder()
                         .order(order)
                         .offer(offer)
                         .finalKey(fk)
-                        .build();
-                ticketRepo.save(t);
+                        .build());
             }
         }
+        ticketRepo.saveAll(tickets);
 
-        var tickets = ticketRepo.findByOrderOrderByIdAsc(order);
-
-        return new CheckoutResponse(
+        // Résultat construit depuis la liste en mémoire : pas de relecture des tickets
+        IssuedOrder issued = new IssuedOrder(
                 order.getId(),
                 tickets.stream()
-                        .map(t -> {
-                            byte[] png = qrService.generatePng(t.getFinalKey(), 256);
-                            String base64 = Base64.getEncoder().encodeToString(png);
-                            return new TicketResponse(
-                                    t.getId(),
-                                    t.getOffer().getId(),
-                                    base64
-                            );
-                        })
+                        .map(t -> new IssuedTicket(t.getId(), t.getOffer().getId(), t.getFinalKey()))
                         .toList()
         );
-    }
-
-    private String generateFinalKey(String kUser, String purchaseKey, Long offerId, long index) {
-        String ku = (kUser == null || kUser.isBlank()) ? "nouser" : kUser;
-        String src = ku + ":" + purchaseKey + ":" + offerId + ":" + index;
-        try {
-            MessageDigest md = MessageDigest.getInstance("SHA-256");
-            byte[] digest = md.digest(src.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(digest);
-        } catch (Exception e) {
-            return UUID.randomUUID().toString().replace("-", "");
-        }
+        // évènement validé avec la commande (sync, async et réservation confirmée)
+        outbox.orderIssued(new Outbox.OrderIssued(order.getId(), order.getUser().getId(),
+                issued.tickets().stream().map(t -> new Outbox.IssuedLine(t.ticketId(), t.offerId())).toList()));
+        return issued;
     }
 
     /* ------------------ LISTE DES TICKETS D'UNE COMMANDE ------------------ */
 
+    /** Tickets d'id > cursor, par ordre croissant. */
     @Transactional(Transactional.TxType.SUPPORTS)
-    public List<Ticket> listTicketsForOrder(Long orderId, Long expectedUserId) {
-        Order order = orders.findById(orderId)
+    public KeysetPage<TicketRow> listTicketsForOrder(Long orderId, Long expectedUserId, Long cursor, int limit) {
+        requireOwnedOrder(orderId, expectedUserId);
+        var rows = ticketRepo.findRowsByOrderId(orderId, cursor == null ? 0L : cursor, KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, TicketRow::id);
+    }
+
+    /** Page de tickets (ordre des ids) pour les exports en flux : mémoire bornée quelle que soit la commande. */
+    public List<IssuedTicket> ticketPage(Long orderId, Long afterId, int size) {
+        return ticketRepo.findIssuedPage(orderId, afterId == null ? 0L : afterId, PageRequest.of(0, size));
+    }
+
+    public void requireOwnedOrder(Long orderId, Long expectedUserId) {
+        Long ownerId = orders.findOwnerId(orderId)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Commande inconnue"));
 
-        if (!Objects.equals(order.getUser().getId(), expectedUserId)) {
+        if (!Objects.equals(ownerId, expectedUserId)) {
             throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Accès interdit");
         }
-
-        return ticketRepo.findByOrderOrderByIdAsc(order);
     }
 
     /* ------------------ LISTE DES COMMANDES D’UN UTILISATEUR ------------------ */
 
+    /** Commandes d'id < cursor, les plus récentes d'abord. */
     @Transactional(Transactional.TxType.SUPPORTS)
-    public List<OrdersListResponse> listOrdersForUser(Long userId) {
-        var list = orders.findByUserIdOrderByIdDesc(userId);
-        return list.stream()
-                .map(o -> new OrdersListResponse(o.getId(), o.getCreatedAt()))
-                .toList();
+    public KeysetPage<OrdersListResponse> listOrdersForUser(Long userId, Long cursor, int limit) {
+        var rows = orders.findSummariesByUserId(userId, cursor == null ? Long.MAX_VALUE : cursor, KeysetPage.probe(limit));
+        return KeysetPage.of(rows, limit, OrdersListResponse::id);
     }
 }
@@ -0,0 +1,10 @@
+package com.example.ticketing.order.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record HoldResponse(
+        String holdId,
+        Instant expiresAt,
+        List<CheckoutItem> items
+) {}
@@ -0,0 +1,7 @@
+package com.example.ticketing.order.dto;
+
+public record IssuanceStatusResponse(
+        Long orderId,
+        String status,
+        long tickets
+) {}
@@ -0,0 +1,5 @@
+package com.example.ticketing.order.dto;
+
+import java.util.List;
+
+public record IssuedOrder(Long orderId, List<IssuedTicket> tickets) {}
@@ -0,0 +1,3 @@
+package com.example.ticketing.order.dto;
+
+public record IssuedTicket(Long ticketId, Long offerId, String finalKey) {}
@@ -7,5 +7,6 @@ public record TicketDto(
         Long offerId,
         String offerName,
         String finalKey,
-        Instant consumedAt
+        Instant consumedAt,
+        String token
 ) {}
@@ -1,3 +1,6 @@
 package com.example.ticketing.order.dto;
 
-public record TicketResponse(Long ticketId, Long offerId, String qrcodeBase64) {}
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TicketResponse(Long ticketId, Long offerId, String qrcodeBase64, String qrUrl) {}
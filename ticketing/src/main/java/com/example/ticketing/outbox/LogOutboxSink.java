@@ -0,0 +1,24 @@
+package com.example.ticketing.outbox;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/** Puits par défaut : les évènements ne sortent pas de l'application, seulement tracés. */
+@Component
+@ConditionalOnProperty(name = "app.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LogOutboxSink implements OutboxSink {
+
+    private static final Logger log = LoggerFactory.getLogger(LogOutboxSink.class);
+
+    @Override
+    public void publish(List<OutboxMessage> batch) {
+        if (!log.isDebugEnabled()) return;
+        for (OutboxMessage m : batch) {
+            log.debug("outbox #{} {} {} {}", m.id(), m.type(), m.aggregateId(), m.payload());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ticketing.outbox;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Écriture des évènements dans la transaction de l'appelant (obligatoire) : l'évènement existe
+ * si et seulement si le changement qu'il décrit est validé. Insertion JDBC directe, sans
+ * entité dans le contexte de persistance de la commande.
+ */
+@Component
+public class Outbox {
+
+    public static final String ORDER_ISSUED = "order.issued";
+    public static final String TICKET_CONSUMED = "ticket.consumed";
+
+    private static final String INSERT =
+            "insert into outbox_event (type, aggregate_id, payload, created_at) values (?, ?, ?, ?)";
+
+    /* Charges utiles (sans finalKey : les évènements peuvent quitter l'application) */
+    public record IssuedLine(Long ticketId, Long offerId) {}
+
+    public record OrderIssued(Long orderId, Long userId, List<IssuedLine> tickets) {}
+
+    public record TicketConsumed(Long ticketId, Long offerId, Instant consumedAt) {}
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper json;
+
+    public Outbox(JdbcTemplate jdbc, ObjectMapper json) {
+        this.jdbc = jdbc;
+        this.json = json;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void orderIssued(OrderIssued event) {
+        jdbc.update(INSERT, ORDER_ISSUED, event.orderId(), write(event), Timestamp.from(Instant.now()));
+    }
+
+    /** Un évènement par billet, en un seul aller-retour JDBC pour un lot de consommations. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void ticketsConsumed(List<TicketConsumed> events) {
+        if (events.isEmpty()) return;
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbc.batchUpdate(INSERT, events.stream()
+                .map(e -> new Object[]{TICKET_CONSUMED, e.ticketId(), write(e), now})
+                .toList());
+    }
+
+    private String write(Object payload) {
+        try {
+            return json.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
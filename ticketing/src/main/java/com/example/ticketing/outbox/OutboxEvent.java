@@ -0,0 +1,38 @@
+package com.example.ticketing.outbox;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Évènement métier écrit dans la transaction qui le produit (commande émise, billet consommé),
+ * relayé ensuite aux abonnés. publishedAt null = pas encore relayé.
+ */
+@Entity
+@Table(
+        name = "outbox_event",
+        indexes = {@Index(name = "ix_outbox_event_published_id", columnList = "published_at, id")}
+)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class OutboxEvent {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 64)
+    private String type;
+
+    @Column(name = "aggregate_id", nullable = false)
+    private Long aggregateId;
+
+    @Column(nullable = false, length = 1_000_000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Column(name = "published_at")
+    private Instant publishedAt;
+}
@@ -0,0 +1,12 @@
+package com.example.ticketing.outbox;
+
+import java.time.Instant;
+
+/** Évènement relayé (application et puits externe) ; payload JSON tel qu'écrit à la source. */
+public record OutboxMessage(
+        long id,
+        String type,
+        Long aggregateId,
+        String payload,
+        Instant createdAt
+) {}
@@ -0,0 +1,85 @@
+package com.example.ticketing.outbox;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Relais de l'outbox : lit les évènements non publiés par lots (lignes verrouillées), les
+ * diffuse aux écouteurs de l'application (@EventListener sur {@link OutboxMessage}) puis au
+ * puits externe, et les marque publiés dans la même transaction. Un échec d'écouteur ou du
+ * puits annule le lot, repris au passage suivant.
+ */
+@Component
+public class OutboxRelay {
+
+    private final OutboxEventRepository events;
+    private final OutboxSink sink;
+    private final ApplicationEventPublisher publisher;
+    private final TransactionTemplate tx;
+    private final int batchSize;
+    private final Duration retention;
+    private final Counter published;
+
+    public OutboxRelay(OutboxEventRepository events,
+                       OutboxSink sink,
+                       ApplicationEventPublisher publisher,
+                       PlatformTransactionManager txManager,
+                       MeterRegistry registry,
+                       @Value("${app.outbox.batch-size:200}") int batchSize,
+                       @Value("${app.outbox.retention-hours:24}") long retentionHours) {
+        this.events = events;
+        this.sink = sink;
+        this.publisher = publisher;
+        this.tx = new TransactionTemplate(txManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.retention = Duration.ofHours(retentionHours);
+        this.published = Counter.builder("outbox.published").register(registry);
+    }
+
+    /** Vide l'outbox lot par lot ; renvoie le nombre d'évènements publiés. */
+    @Scheduled(fixedDelayString = "${app.outbox.relay-ms:500}")
+    public synchronized int relay() {
+        int total = 0;
+        int n;
+        do {
+            n = relayBatch();
+            total += n;
+        } while (n == batchSize);
+        return total;
+    }
+
+    private int relayBatch() {
+        Integer n = tx.execute(status -> {
+            List<OutboxEvent> batch = events.lockUnpublished(PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) return 0;
+
+            List<OutboxMessage> messages = batch.stream()
+                    .map(e -> new OutboxMessage(e.getId(), e.getType(), e.getAggregateId(), e.getPayload(), e.getCreatedAt()))
+                    .toList();
+            messages.forEach(publisher::publishEvent);
+            sink.publish(messages);
+            events.markPublished(messages.stream().map(OutboxMessage::id).toList(), Instant.now());
+            return messages.size();
+        });
+        int count = n == null ? 0 : n;
+        published.increment(count);
+        return count;
+    }
+
+    /* Évènements publiés conservés le temps de la rétention (relecture, diagnostic) */
+    @Scheduled(fixedDelayString = "${app.outbox.purge-ms:3600000}")
+    public void purge() {
+        events.purgePublishedBefore(Instant.now().minus(retention));
+    }
+}
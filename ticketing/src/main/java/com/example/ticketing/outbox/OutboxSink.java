@@ -0,0 +1,13 @@
+package com.example.ticketing.outbox;
+
+import java.util.List;
+
+/**
+ * Destination externe des évènements (journal par défaut ; bus de messages, webhook...).
+ * Un lot n'est marqué publié que si publish() se termine sans exception : livraison
+ * au moins une fois, les consommateurs dédoublonnent sur {@link OutboxMessage#id()}.
+ */
+public interface OutboxSink {
+
+    void publish(List<OutboxMessage> batch);
+}
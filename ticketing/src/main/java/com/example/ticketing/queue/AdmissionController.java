@@ -0,0 +1,28 @@
+package com.example.ticketing.queue;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/order/queue")
+@RequiredArgsConstructor
+public class AdmissionController {
+
+    private final AdmissionQueue queue;
+
+    /* Entrée dans la file : jeton + position */
+    @PostMapping
+    public ResponseEntity<QueueStatus> join(
+            @AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user
+    ) {
+        return ResponseEntity.ok(queue.join(user.getId()));
+    }
+
+    /* Polling de la position (aucun accès base) */
+    @GetMapping("/{token}")
+    public ResponseEntity<QueueStatus> status(@PathVariable String token) {
+        return ResponseEntity.ok(queue.status(token));
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.ticketing.queue;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Salle d'attente devant le checkout.
+ * Chaque acheteur reçoit un numéro ; un tick périodique fait avancer la "barre d'admission"
+ * au débit configuré. Les clients interrogent leur position (lecture O(1), sans base ni
+ * thread bloqué) : 100k acheteurs en attente ne coûtent qu'une entrée de map chacun.
+ * Une seule place par acheteur : rejoindre la file à nouveau rend la place déjà attribuée.
+ */
+@Component
+public class AdmissionQueue {
+
+    private static final long TICK_MS = 200;
+
+    private final boolean enabled;
+    private final double admitPerTick;
+    private final long admissionTtlMillis;
+    private final Semaphore checkoutSlots;
+    private final Clock clock;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Long, String> tokenByUser = new ConcurrentHashMap<>();
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long admittedUpTo;
+    private double carry;
+
+    @Autowired
+    public AdmissionQueue(@Value("${app.queue.enabled:false}") boolean enabled,
+                          @Value("${app.queue.admit-per-second:50}") double admitPerSecond,
+                          @Value("${app.queue.admission-ttl-seconds:300}") long admissionTtlSeconds,
+                          @Value("${app.queue.max-concurrent-checkouts:20}") int maxConcurrentCheckouts) {
+        this(enabled, admitPerSecond, admissionTtlSeconds, maxConcurrentCheckouts, Clock.systemUTC());
+    }
+
+    AdmissionQueue(boolean enabled, double admitPerSecond, long admissionTtlSeconds,
+                   int maxConcurrentCheckouts, Clock clock) {
+        this.enabled = enabled;
+        this.clock = clock;
+        this.admitPerTick = admitPerSecond * TICK_MS / 1000.0;
+        this.admissionTtlMillis = admissionTtlSeconds * 1000L;
+        this.checkoutSlots = new Semaphore(Math.max(1, maxConcurrentCheckouts));
+    }
+
+    /* ----------- Côté acheteur ----------- */
+
+    public QueueStatus join(Long userId) {
+        if (!enabled) return new QueueStatus(UUID.randomUUID().toString(), 0, true, 0);
+        // place existante rendue telle quelle : rejoindre en boucle ne fait pas grossir la file
+        String token = tokenByUser.compute(userId, (u, current) -> {
+            if (current != null && entries.containsKey(current)) return current;
+            String fresh = UUID.randomUUID().toString();
+            entries.put(fresh, new Entry(u, tail.incrementAndGet()));
+            return fresh;
+        });
+        return status(token);
+    }
+
+    public QueueStatus status(String token) {
+        if (!enabled) return new QueueStatus(token, 0, true, 0);
+        Entry e = token == null ? null : entries.get(token);
+        if (e == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Jeton de file inconnu ou expiré");
+        }
+        long position = Math.max(0, e.number - admittedUpTo);
+        long wait = admitPerTick <= 0 ? -1 : (long) Math.ceil(position / admitPerTick * TICK_MS / 1000.0);
+        return new QueueStatus(token, position, position == 0, wait);
+    }
+
+    /* ----------- Côté checkout ----------- */
+
+    /**
+     * Laisse passer un checkout : jeton admis puis place parmi les checkouts concurrents
+     * autorisés. Le jeton n'est consommé que par {@link Pass#consume()} une fois le checkout
+     * réussi : un échec (stock épuisé, erreur, délai) laisse l'acheteur réessayer avec le même jeton.
+     * À fermer une fois le checkout terminé.
+     */
+    public Pass enter(String token, Long userId) {
+        if (!enabled) return OPEN;
+
+        Entry e = token == null ? null : entries.get(token);
+        if (e == null || !Objects.equals(e.userId, userId)) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Passage par la file d'attente requis");
+        }
+        if (e.number > admittedUpTo) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Pas encore votre tour");
+        }
+        // un seul checkout à la fois par jeton
+        if (!e.busy.compareAndSet(false, true)) {
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Commande déjà en cours");
+        }
+        if (!checkoutSlots.tryAcquire()) {
+            e.busy.set(false);
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Trop de commandes en cours, réessayez");
+        }
+        return new Admitted(token, e);
+    }
+
+    /* ----------- Avancement de la file ----------- */
+
+    @Scheduled(fixedRate = TICK_MS)
+    void tick() {
+        if (!enabled) return;
+        carry += admitPerTick;
+        long step = (long) carry;
+        carry -= step;
+        admittedUpTo = Math.min(tail.get(), admittedUpTo + step);
+    }
+
+    /* Admissions non utilisées à temps : la place est perdue */
+    @Scheduled(fixedRate = 1000)
+    void expireAdmissions() {
+        if (!enabled) return;
+        long now = clock.millis();
+        long bar = admittedUpTo;
+        entries.entrySet().removeIf(en -> {
+            Entry e = en.getValue();
+            if (e.number > bar) return false;
+            if (e.admittedAt == 0) e.admittedAt = now;
+            if (now - e.admittedAt <= admissionTtlMillis) return false;
+            tokenByUser.remove(e.userId, en.getKey());
+            return true;
+        });
+    }
+
+    public interface Pass extends AutoCloseable {
+        /** Checkout abouti : le jeton d'admission est consommé. */
+        void consume();
+
+        @Override
+        void close();
+    }
+
+    private static final Pass OPEN = new Pass() {
+        @Override
+        public void consume() {}
+
+        @Override
+        public void close() {}
+    };
+
+    private final class Admitted implements Pass {
+        private final String token;
+        private final Entry entry;
+        private boolean consumed;
+
+        Admitted(String token, Entry entry) {
+            this.token = token;
+            this.entry = entry;
+        }
+
+        @Override
+        public void consume() {
+            consumed = true;
+            entries.remove(token, entry);
+            tokenByUser.remove(entry.userId, token);
+        }
+
+        @Override
+        public void close() {
+            if (!consumed) entry.busy.set(false);
+            checkoutSlots.release();
+        }
+    }
+
+    private static final class Entry {
+        final Long userId;
+        final long number;
+        final AtomicBoolean busy = new AtomicBoolean();
+        volatile long admittedAt;
+
+        Entry(Long userId, long number) {
+            this.userId = userId;
+            this.number = number;
+        }
+    }
+}
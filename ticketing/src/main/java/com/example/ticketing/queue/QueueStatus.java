@@ -0,0 +1,8 @@
+package com.example.ticketing.queue;
+
+public record QueueStatus(
+        String token,
+        long position,
+        boolean admitted,
+        long estimatedWaitSeconds
+) {}
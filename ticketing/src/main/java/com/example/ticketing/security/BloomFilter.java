@@ -0,0 +1,48 @@
+package com.example.ticketing.security;
+
+/**
+ * Filtre de Bloom minimal sur des chaînes (double hachage, sans allocation à la lecture).
+ * Faux positifs possibles, jamais de faux négatifs : un "non" est définitif.
+ */
+final class BloomFilter {
+
+    private final long[] bits;
+    private final int size;
+    private final int hashes;
+
+    BloomFilter(int expected, double fpp) {
+        int n = Math.max(1, expected);
+        this.size = Math.max(64, (int) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        this.hashes = Math.max(1, (int) Math.round((double) size / n * Math.log(2)));
+        this.bits = new long[(size + 63) >>> 6];
+    }
+
+    void add(String s) {
+        int h1 = s.hashCode();
+        int h2 = secondHash(s);
+        for (int i = 0; i < hashes; i++) {
+            int idx = Math.floorMod(h1 + i * h2, size);
+            bits[idx >>> 6] |= 1L << idx;
+        }
+    }
+
+    boolean mightContain(String s) {
+        int h1 = s.hashCode();
+        int h2 = secondHash(s);
+        for (int i = 0; i < hashes; i++) {
+            int idx = Math.floorMod(h1 + i * h2, size);
+            if ((bits[idx >>> 6] & (1L << idx)) == 0) return false;
+        }
+        return true;
+    }
+
+    // FNV-1a, forcé impair pour parcourir toutes les positions
+    private static int secondHash(String s) {
+        int h = 0x811c9dc5;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x01000193;
+        }
+        return h | 1;
+    }
+}
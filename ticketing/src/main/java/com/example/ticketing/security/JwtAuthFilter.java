@@ -1,5 +1,7 @@
 package com.example.ticketing.security;
 
+import com.example.ticketing.user.User;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -9,14 +11,15 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
-import org.springframework.util.AntPathMatcher;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Date;
+import java.util.List;
 
 @Component
 @RequiredArgsConstructor
@@ -26,27 +29,15 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwt;
     private final CustomUserDetailsService uds;
-
-    private static final AntPathMatcher matcher = new AntPathMatcher();
-
-    private static final String[] SKIP = new String[]{
-            "/auth/**",
-            "/h2-console/**",
-            "/api/offers"
-    };
+    private final PrincipalCache principals;
+    private final RevocationList revocations;
 
     @Override
     protected boolean shouldNotFilter(HttpServletRequest request) {
         if ("OPTIONS".equalsIgnoreCase(request.getMethod())) {
             return true;
         }
-        String uri = request.getRequestURI();
-        for (String p : SKIP) {
-            if (matcher.match(p, uri)) {
-                return true;
-            }
-        }
-        return false;
+        return PublicRoutes.matches(request.getMethod(), request.getRequestURI());
     }
 
     @Override
@@ -63,10 +54,11 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                     : authHeader.trim();
 
             try {
-                String email = jwt.getSubject(token);
-                if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    UserDetails ud = uds.loadUserByUsername(email);
-                    if (jwt.isTokenValid(token, ud)) {
+                // une seule analyse du JWT ; rôles lus dans le token, utilisateur via le cache
+                Claims claims = jwt.parse(token);
+                if (SecurityContextHolder.getContext().getAuthentication() == null) {
+                    CustomUserDetails ud = principal(claims);
+                    if (ud != null) {
                         UsernamePasswordAuthenticationToken authToken =
                                 new UsernamePasswordAuthenticationToken(ud, null, ud.getAuthorities());
                         authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -81,4 +73,25 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
         chain.doFilter(request, response);
     }
+
+    private CustomUserDetails principal(Claims claims) {
+        Number uid = claims.get("uid", Number.class);
+        if (uid == null) {
+            // ancien token sans uid : chemin historique
+            return (CustomUserDetails) uds.loadUserByUsername(claims.getSubject());
+        }
+        Date iat = claims.getIssuedAt();
+        if (revocations.isRevoked(claims.getId(), uid.longValue(), iat == null ? 0 : iat.getTime() / 1000)) {
+            return null;
+        }
+        User user = principals.get(uid.longValue());
+        if (user == null || !user.getEmail().equals(claims.getSubject())) {
+            return null;
+        }
+        List<?> roles = claims.get("roles", List.class);
+        List<SimpleGrantedAuthority> authorities = roles == null
+                ? List.of()
+                : roles.stream().map(r -> new SimpleGrantedAuthority(String.valueOf(r))).toList();
+        return new CustomUserDetails(user, authorities);
+    }
 }
@@ -2,18 +2,22 @@ package com.example.ticketing.security;
 
 import com.example.ticketing.user.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
 import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Clock;
 import java.time.Instant;
 import java.util.Date;
 import java.util.Objects;
+import java.util.UUID;
 
 
 @Service
@@ -24,27 +28,41 @@ public class JwtService {
 
     private final String secret;
     private final long expiresMillis;
+    private final Clock clock;
     private SecretKey key;
+    private JwtParser parser;
 
+    @Autowired
     public JwtService(
             @Value("${app.jwt.secret}") String secret,
             @Value("${app.jwt.expires-min:60}") long expiresMin
     ) {
+        this(secret, expiresMin, Clock.systemUTC());
+    }
+
+    JwtService(String secret, long expiresMin, Clock clock) {
         this.secret = Objects.requireNonNull(secret, "app.jwt.secret manquant");
         this.expiresMillis = expiresMin * 60_000L;
+        this.clock = clock;
     }
 
     @PostConstruct
     void init() {
         this.key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        // parser immuable et thread-safe : construit une seule fois
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(key)
+                .setAllowedClockSkewSeconds(ALLOWED_CLOCK_SKEW_SECONDS)
+                .build();
     }
 
     /* ---------- ÉMISSION ---------- */
 
     public String generate(User user) {
-        Instant now = Instant.now();
+        Instant now = clock.instant();
         return Jwts.builder()
                 .setIssuer(ISSUER)
+                .setId(UUID.randomUUID().toString()) // jti : permet la révocation d'un token précis
                 .setSubject(user.getEmail())
                 .claim("uid", user.getId())
                 .claim("roles", user.getRoles())
@@ -56,6 +74,11 @@ public class JwtService {
 
     /* ---------- LECTURE / VALIDATION ---------- */
 
+    /** Vérifie signature et expiration en une seule passe ; lève une JwtException sinon. */
+    public Claims parse(String token) {
+        return parseClaims(sanitize(token));
+    }
+
     public String getSubject(String token) {
         return parseClaims(sanitize(token)).getSubject();
     }
@@ -81,12 +104,7 @@ public class JwtService {
     /* ---------- Internes ---------- */
 
     private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(key)
-                .setAllowedClockSkewSeconds(ALLOWED_CLOCK_SKEW_SECONDS)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return parser.parseClaimsJws(token).getBody();
     }
 
     private static String sanitize(String token) {
@@ -1,14 +1,25 @@
 package com.example.ticketing.security;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.security.SecureRandom;
+
 @Configuration
 public class PasswordConfig {
+
+    /** Source d'aléa partagée (SecureRandom est thread-safe) : sels BCrypt, codes OTP. */
+    @Bean
+    public SecureRandom secureRandom() {
+        return new SecureRandom();
+    }
+
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${app.security.bcrypt-strength:10}") int strength,
+                                           SecureRandom random) {
+        return new BCryptPasswordEncoder(strength, random);
     }
 }
@@ -0,0 +1,45 @@
+package com.example.ticketing.security;
+
+import com.example.ticketing.user.User;
+import com.example.ticketing.user.UserRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Utilisateurs authentifiés par JWT, indexés par uid.
+ * La base n'est lue qu'en cas d'absence ou après expiration du TTL.
+ */
+@Component
+public class PrincipalCache {
+
+    private final Cache<Long, User> users;
+    private final UserRepository repo;
+
+    public PrincipalCache(UserRepository repo,
+                          @Value("${app.jwt.principal-cache.max-entries:100000}") long maxEntries,
+                          @Value("${app.jwt.principal-cache.ttl-seconds:60}") long ttlSeconds,
+                          MeterRegistry registry) {
+        this.repo = repo;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, users, "auth.principal");
+    }
+
+    /** null si l'utilisateur n'existe plus. */
+    public User get(Long uid) {
+        return users.get(uid, id -> repo.findById(id).orElse(null));
+    }
+
+    public void evict(Long uid) {
+        users.invalidate(uid);
+    }
+}
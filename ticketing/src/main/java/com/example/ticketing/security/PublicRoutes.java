@@ -0,0 +1,110 @@
+package com.example.ticketing.security;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Table unique des routes publiques : déclarée ici, consommée par SecurityConfig (permitAll)
+ * et par JwtAuthFilter (pas d'analyse du JWT). Les motifs sont compilés une fois au chargement ;
+ * {@link #matches} ne fait aucune allocation.
+ * Syntaxe supportée : chemin exact, "*" pour un segment entier, "/**" final pour un préfixe.
+ */
+public final class PublicRoutes {
+
+    public record Route(HttpMethod method, String pattern) {}
+
+    /** method == null : toutes les méthodes */
+    public static final List<Route> ALL = List.of(
+            // Auth publique (login, otp…)
+            new Route(null, "/auth/**"),
+            // H2 console (mode dev uniquement)
+            new Route(null, "/h2-console/**"),
+            // Sonde de santé (les métriques restent réservées ADMIN)
+            new Route(HttpMethod.GET, "/actuator/health/**"),
+            // Offres publiques
+            new Route(HttpMethod.GET, "/api/offers"),
+            // Vérification d’un ticket (scan)
+            new Route(HttpMethod.GET, "/api/tickets/verify"),
+            new Route(HttpMethod.GET, "/api/tickets/verify-token")
+    );
+
+    private static final Map<String, HttpMethod[]> EXACT = new HashMap<>();
+    private static final List<Compiled> PATTERNS = new ArrayList<>();
+
+    static {
+        Map<String, List<HttpMethod>> exact = new HashMap<>();
+        for (Route r : ALL) {
+            if (r.pattern().contains("*")) {
+                PATTERNS.add(Compiled.of(r));
+            } else {
+                exact.computeIfAbsent(r.pattern(), k -> new ArrayList<>()).add(r.method());
+            }
+        }
+        exact.forEach((path, methods) -> EXACT.put(path, methods.toArray(HttpMethod[]::new)));
+    }
+
+    private PublicRoutes() {}
+
+    public static boolean matches(String method, String uri) {
+        if (uri == null) return false;
+        HttpMethod[] methods = EXACT.get(uri);
+        if (methods != null) {
+            for (HttpMethod m : methods) {
+                if (accepts(m, method)) return true;
+            }
+        }
+        for (int i = 0, n = PATTERNS.size(); i < n; i++) {
+            Compiled c = PATTERNS.get(i);
+            if (accepts(c.method, method) && c.matches(uri)) return true;
+        }
+        return false;
+    }
+
+    private static boolean accepts(HttpMethod expected, String method) {
+        return expected == null || expected.name().equals(method);
+    }
+
+    /* Motif découpé en segments ; null = "*" (un segment quelconque, non vide) */
+    private record Compiled(HttpMethod method, String[] segments, boolean prefix) {
+
+        static Compiled of(Route r) {
+            String p = r.pattern();
+            boolean prefix = p.endsWith("/**");
+            if (prefix) p = p.substring(0, p.length() - 3);
+            String[] parts = p.substring(1).split("/");
+            String[] segments = new String[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                if (parts[i].contains("*") && !parts[i].equals("*")) {
+                    throw new IllegalArgumentException("Motif non supporté : " + r.pattern());
+                }
+                segments[i] = parts[i].equals("*") ? null : parts[i];
+            }
+            return new Compiled(r.method(), segments, prefix);
+        }
+
+        boolean matches(String uri) {
+            if (uri.isEmpty() || uri.charAt(0) != '/') return false;
+            int pos = 1;
+            for (String seg : segments) {
+                if (pos > uri.length()) return false;
+                int end = uri.indexOf('/', pos);
+                if (end < 0) end = uri.length();
+                int len = end - pos;
+                if (seg == null) {
+                    if (len == 0) return false;
+                } else if (len != seg.length() || !uri.regionMatches(pos, seg, 0, len)) {
+                    return false;
+                }
+                pos = end + 1;
+            }
+            // pos == longueur + 1 : tous les segments consommés exactement
+            if (pos == uri.length() + 1) return true;
+            // "/**" : tout ce qui suit le préfixe (y compris le préfixe seul)
+            return prefix && uri.charAt(pos - 1) == '/';
+        }
+    }
+}
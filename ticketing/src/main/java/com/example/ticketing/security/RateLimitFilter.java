@@ -0,0 +1,161 @@
+package com.example.ticketing.security;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limiteur de débit (seau à jetons) placé juste après JwtAuthFilter.
+ * Chaque clé (IP ou utilisateur) tient dans un AtomicLong : l'instant d'arrivée théorique
+ * de la prochaine requête (GCRA, équivalent au seau à jetons). Décision par un seul CAS,
+ * sans verrou ; les clés inactives sont purgées au fil de l'eau.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final long SWEEP_EVERY_NANOS = 30_000_000_000L;
+
+    private final boolean enabled;
+    private final Map<String, Rule[]> rules = new HashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong(System.nanoTime() + SWEEP_EVERY_NANOS);
+
+    public RateLimitFilter(@Value("${app.rate-limit.enabled:true}") boolean enabled,
+                           @Value("${app.rate-limit.login.capacity:20}") int loginCapacity,
+                           @Value("${app.rate-limit.login.per-second:1}") double loginRate,
+                           @Value("${app.rate-limit.otp.capacity:10}") int otpCapacity,
+                           @Value("${app.rate-limit.otp.per-second:0.5}") double otpRate,
+                           @Value("${app.rate-limit.checkout.capacity:5}") int checkoutCapacity,
+                           @Value("${app.rate-limit.checkout.per-second:1}") double checkoutRate,
+                           @Value("${app.rate-limit.queue.capacity:5}") int queueCapacity,
+                           @Value("${app.rate-limit.queue.per-second:0.2}") double queueRate,
+                           @Value("${app.rate-limit.verify.capacity:100}") int verifyCapacity,
+                           @Value("${app.rate-limit.verify.per-second:50}") double verifyRate,
+                           MeterRegistry registry) {
+        this.enabled = enabled;
+        add(new Rule("login", "POST", false, loginCapacity, loginRate, registry), "/auth/login");
+        add(new Rule("otp", "POST", false, otpCapacity, otpRate, registry), "/auth/otp/verify");
+        add(new Rule("checkout", "POST", true, checkoutCapacity, checkoutRate, registry),
+                "/api/order/checkout", "/api/order/checkout/async", "/api/order/holds");
+        add(new Rule("queue", "POST", true, queueCapacity, queueRate, registry), "/api/order/queue");
+        add(new Rule("verify", "GET", false, verifyCapacity, verifyRate, registry),
+                "/api/tickets/verify", "/api/tickets/verify-token");
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !rules.containsKey(request.getRequestURI());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain chain) throws ServletException, IOException {
+        long now = System.nanoTime();
+        for (Rule rule : rules.get(request.getRequestURI())) {
+            if (!rule.method.equals(request.getMethod())) continue;
+            long waitNanos = rule.acquire(key(rule, request), now);
+            if (waitNanos > 0) {
+                response.setHeader("Retry-After", String.valueOf(Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L)));
+                response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Trop de requêtes, réessayez plus tard");
+                return;
+            }
+        }
+        sweepIfDue(now);
+        chain.doFilter(request, response);
+    }
+
+    /* ---------- Internes ---------- */
+
+    private void add(Rule rule, String... paths) {
+        for (String p : paths) {
+            Rule[] prev = rules.get(p);
+            if (prev == null) {
+                rules.put(p, new Rule[]{rule});
+            } else {
+                Rule[] next = Arrays.copyOf(prev, prev.length + 1);
+                next[prev.length] = rule;
+                rules.put(p, next);
+            }
+        }
+    }
+
+    // utilisateur authentifié si la règle le demande, sinon adresse IP
+    private static Object key(Rule rule, HttpServletRequest request) {
+        if (rule.perUser) {
+            Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+            if (auth != null && auth.getPrincipal() instanceof CustomUserDetails ud) {
+                return ud.getUser().getId();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private void sweepIfDue(long now) {
+        long due = nextSweep.get();
+        if (now - due < 0 || !nextSweep.compareAndSet(due, now + SWEEP_EVERY_NANOS)) return;
+        for (Rule[] rs : rules.values()) {
+            for (Rule r : rs) r.evictIdle(now);
+        }
+    }
+
+    static final class Rule {
+        final String method;
+        final boolean perUser;
+        private final long intervalNanos;
+        private final long burstNanos;
+        private final Map<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private final Counter allowed;
+        private final Counter rejected;
+
+        Rule(String name, String method, boolean perUser, int capacity, double perSecond, MeterRegistry registry) {
+            this.method = method;
+            this.perUser = perUser;
+            this.intervalNanos = (long) (1_000_000_000L / perSecond);
+            this.burstNanos = intervalNanos * Math.max(1, capacity);
+            this.allowed = Counter.builder("ratelimit.requests").tag("route", name).tag("outcome", "allowed").register(registry);
+            this.rejected = Counter.builder("ratelimit.requests").tag("route", name).tag("outcome", "rejected").register(registry);
+            Gauge.builder("ratelimit.buckets", buckets, Map::size).tag("route", name).register(registry);
+        }
+
+        /** 0 si la requête passe, sinon l'attente (ns) avant le prochain jeton. */
+        long acquire(Object key, long now) {
+            AtomicLong tat = buckets.get(key);
+            if (tat == null) tat = buckets.computeIfAbsent(key, k -> new AtomicLong(now));
+            while (true) {
+                long current = tat.get();
+                long next = Math.max(current, now) + intervalNanos;
+                long excess = next - now - burstNanos;
+                if (excess > 0) {
+                    rejected.increment();
+                    return excess;
+                }
+                if (tat.compareAndSet(current, next)) {
+                    allowed.increment();
+                    return 0;
+                }
+            }
+        }
+
+        // seau plein (arrivée théorique passée) : la clé ne porte plus d'information
+        void evictIdle(long now) {
+            buckets.values().removeIf(tat -> tat.get() - now <= 0);
+        }
+    }
+}
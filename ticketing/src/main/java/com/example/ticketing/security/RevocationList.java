@@ -0,0 +1,150 @@
+package com.example.ticketing.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Liste de révocation en mémoire, synchronisée périodiquement depuis la table revoked_token.
+ * Contrôle par requête en temps constant et sans allocation : filtre de Bloom devant
+ * l'ensemble exact des jti, tableau trié pour les révocations par utilisateur.
+ * Une révocation faite sur cette instance s'applique aussitôt via un petit ensemble
+ * "récent", copié à l'écriture ; la synchronisation suivante la verse dans la base du snapshot.
+ */
+@Component
+public class RevocationList {
+
+    private static final Logger log = LoggerFactory.getLogger(RevocationList.class);
+
+    private final RevokedTokenRepository repo;
+    private final long tokenLifetimeMillis;
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    // révocations locales pas encore vues par une synchronisation ; gardé par "this"
+    private final List<RevokedToken> local = new ArrayList<>();
+
+    public RevocationList(RevokedTokenRepository repo,
+                          @Value("${app.jwt.expires-min:60}") long expiresMin) {
+        this.repo = repo;
+        this.tokenLifetimeMillis = expiresMin * 60_000L;
+    }
+
+    /* ---------- Contrôle (chemin chaud du filtre JWT) ---------- */
+
+    /**
+     * iat est à la seconde (claim JWT) : un token émis dans la seconde même de la révocation
+     * reste accepté, pour qu'un utilisateur qui se reconnecte aussitôt ne soit pas rejeté.
+     */
+    public boolean isRevoked(String jti, long uid, long issuedAtEpochSecond) {
+        Snapshot s = snapshot;
+        if (jti != null && (s.bloom.mightContain(jti) && s.jtis.contains(jti) || s.recentJtis.contains(jti))) {
+            return true;
+        }
+        int i = Arrays.binarySearch(s.userIds, uid);
+        if (i >= 0 && issuedAtEpochSecond < s.revokedBefore[i]) {
+            return true;
+        }
+        if (s.recentUsers.isEmpty()) return false;
+        Long before = s.recentUsers.get(uid);
+        return before != null && issuedAtEpochSecond < before;
+    }
+
+    /* ---------- Révocations ---------- */
+
+    public void revokeToken(String jti, Instant expiresAt) {
+        if (jti == null) return;
+        applyLocal(repo.save(RevokedToken.builder()
+                .jti(jti)
+                .revokedAt(Instant.now())
+                .expiresAt(expiresAt)
+                .build()));
+    }
+
+    /** Invalide tous les tokens déjà émis pour cet utilisateur. */
+    public void revokeUser(Long userId) {
+        Instant now = Instant.now();
+        applyLocal(repo.save(RevokedToken.builder()
+                .userId(userId)
+                .revokedAt(now)
+                .expiresAt(now.plusMillis(tokenLifetimeMillis))
+                .build()));
+    }
+
+    /* Pas de rechargement complet sur le thread de la requête : seul l'ensemble récent est recopié */
+    private synchronized void applyLocal(RevokedToken r) {
+        local.add(r);
+        Snapshot s = snapshot;
+        Set<String> jtis = s.recentJtis;
+        Map<Long, Long> users = s.recentUsers;
+        if (r.getJti() != null) {
+            jtis = new HashSet<>(jtis);
+            jtis.add(r.getJti());
+        }
+        if (r.getUserId() != null) {
+            users = new HashMap<>(users);
+            users.merge(r.getUserId(), r.getRevokedAt().getEpochSecond(), Math::max);
+        }
+        snapshot = new Snapshot(s.bloom, s.jtis, s.userIds, s.revokedBefore, jtis, users);
+    }
+
+    /* ---------- Synchronisation avec la table (autres instances, purge) ---------- */
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${app.jwt.revocation.sync-ms:5000}", initialDelayString = "${app.jwt.revocation.sync-ms:5000}")
+    public void sync() {
+        Instant now = Instant.now();
+        List<RevokedToken> rows = repo.findByExpiresAtAfter(now);
+
+        BloomFilter bloom = new BloomFilter(rows.size(), 0.01);
+        Set<String> jtis = new HashSet<>();
+        Map<Long, Long> users = new TreeMap<>();
+        for (RevokedToken r : rows) {
+            if (r.getJti() != null) {
+                bloom.add(r.getJti());
+                jtis.add(r.getJti());
+            }
+            if (r.getUserId() != null) {
+                users.merge(r.getUserId(), r.getRevokedAt().getEpochSecond(), Math::max);
+            }
+        }
+        long[] ids = users.keySet().stream().mapToLong(Long::longValue).toArray();
+        long[] before = users.values().stream().mapToLong(Long::longValue).toArray();
+
+        synchronized (this) {
+            // une révocation locale absente de la lecture (non encore commitée) reste dans "récent"
+            local.removeIf(r -> r.getExpiresAt().isBefore(now)
+                    || (r.getJti() != null ? jtis.contains(r.getJti())
+                                           : users.getOrDefault(r.getUserId(), Long.MIN_VALUE) >= r.getRevokedAt().getEpochSecond()));
+            Set<String> recentJtis = new HashSet<>();
+            Map<Long, Long> recentUsers = new HashMap<>();
+            for (RevokedToken r : local) {
+                if (r.getJti() != null) recentJtis.add(r.getJti());
+                if (r.getUserId() != null) recentUsers.merge(r.getUserId(), r.getRevokedAt().getEpochSecond(), Math::max);
+            }
+            snapshot = new Snapshot(bloom, jtis, ids, before, recentJtis, recentUsers);
+        }
+
+        int purged = repo.purgeExpired(now);
+        if (purged > 0) log.debug("{} révocations expirées purgées", purged);
+    }
+
+    private record Snapshot(BloomFilter bloom, Set<String> jtis, long[] userIds, long[] revokedBefore,
+                            Set<String> recentJtis, Map<Long, Long> recentUsers) {
+        static final Snapshot EMPTY = new Snapshot(new BloomFilter(1, 0.01), Set.of(), new long[0], new long[0],
+                Set.of(), Map.of());
+    }
+}
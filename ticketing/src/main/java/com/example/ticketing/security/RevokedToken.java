@@ -0,0 +1,35 @@
+package com.example.ticketing.security;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Révocation d'un token (jti) ou de toutes les sessions d'un utilisateur (userId,
+ * tokens émis avant revokedAt). La ligne peut être purgée après expiresAt.
+ */
+@Entity
+@Table(
+        name = "revoked_token",
+        indexes = {@Index(name = "ix_revoked_token_expires_at", columnList = "expires_at")}
+)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor @Builder
+public class RevokedToken {
+
+    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 64)
+    private String jti;
+
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+}
@@ -1,5 +1,6 @@
 package com.example.ticketing.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -9,6 +10,8 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.servlet.util.matcher.PathPatternRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -21,9 +24,11 @@ import java.util.List;
 public class SecurityConfig {
 
     private final JwtAuthFilter jwtAuthFilter;
+    private final RateLimitFilter rateLimitFilter;
 
-    public SecurityConfig(JwtAuthFilter jwtAuthFilter) {
+    public SecurityConfig(JwtAuthFilter jwtAuthFilter, RateLimitFilter rateLimitFilter) {
         this.jwtAuthFilter = jwtAuthFilter;
+        this.rateLimitFilter = rateLimitFilter;
     }
 
     @Bean
@@ -41,28 +46,21 @@ public class SecurityConfig {
                         // Preflight (navigateur)
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
-                        // Auth publique (login, otp…)
-                        .requestMatchers("/auth/**").permitAll()
+                        // Fin d'un export en flux / SSE : la requête initiale a déjà été autorisée,
+                        // et le contexte JWT (stateless) n'existe plus lors du dispatch asynchrone
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
 
-                        // H2 console (mode dev uniquement)
-                        .requestMatchers("/h2-console/**").permitAll()
-
-                        .requestMatchers("/actuator/**").permitAll()
-
-                        // Offres publiques
-                        .requestMatchers(HttpMethod.GET, "/api/offers").permitAll()
-
-                        // Image PNG du QR
-                        .requestMatchers(HttpMethod.GET, "/api/tickets/*/qr.png").permitAll()
-
-                        // Vérification d’un ticket (scan)
-                        .requestMatchers(HttpMethod.GET, "/api/tickets/verify").permitAll()
+                        // Routes publiques (auth, offres, QR, scan…) : table partagée avec JwtAuthFilter
+                        .requestMatchers(PublicRoutes.ALL.stream()
+                                .map(r -> (RequestMatcher) PathPatternRequestMatcher.withDefaults().matcher(r.method(), r.pattern()))
+                                .toArray(RequestMatcher[]::new)).permitAll()
 
                         // Consommation d’un ticket : réservé AGENT ou ADMIN
-                        .requestMatchers(HttpMethod.POST, "/api/tickets/consume").hasAnyRole("AGENT", "ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/tickets/consume", "/api/tickets/consume/batch").hasAnyRole("AGENT", "ADMIN")
 
                         // Espace admin : réservé ADMIN
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
 
                         // Toute autre API nécessite un JWT
                         .requestMatchers("/api/**").authenticated()
@@ -73,7 +71,9 @@ public class SecurityConfig {
 
                 .headers(h -> h.frameOptions(f -> f.disable()))
 
-                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                // après le JWT : le checkout est limité par utilisateur, le reste par IP
+                .addFilterAfter(rateLimitFilter, JwtAuthFilter.class);
 
         return http.build();
     }
@@ -89,7 +89,8 @@ public class SecurityConfig {
         ));
 
         cors.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
-        cors.setAllowedHeaders(List.of("Content-Type", "Authorization"));
+        cors.setAllowedHeaders(List.of("Content-Type", "Authorization", "Idempotency-Key", "X-Queue-Token"));
+        cors.setExposedHeaders(List.of("X-Next-Cursor", "Idempotent-Replayed"));
         cors.setAllowCredentials(true);
         cors.setMaxAge(Duration.ofHours(1));
 
@@ -0,0 +1,89 @@
+package com.example.ticketing.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Jetons de billet signés, vérifiables par un scanner sans accès à la base.
+ * Format : "T1.<base64url(ticketId|offerId)>.<base64url(HMAC-SHA256 tronqué à 16 octets)>".
+ * La clé est dérivée du secret JWT (même matériau, usage séparé).
+ */
+@Service
+public class TicketTokenService {
+
+    private static final String PREFIX = "T1.";
+    private static final int MAC_BYTES = 16;
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder B64D = Base64.getUrlDecoder();
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> macs;
+
+    public TicketTokenService(@Value("${app.ticket.secret:${app.jwt.secret}}") String secret) {
+        Objects.requireNonNull(secret, "app.ticket.secret manquant");
+        this.key = new SecretKeySpec(derive(secret), "HmacSHA256");
+        this.macs = ThreadLocal.withInitial(() -> newMac(key));
+    }
+
+    public record TicketClaims(long ticketId, long offerId) {}
+
+    /* ---------- ÉMISSION ---------- */
+
+    public String issue(long ticketId, long offerId) {
+        byte[] payload = ByteBuffer.allocate(16).putLong(ticketId).putLong(offerId).array();
+        return PREFIX + B64.encodeToString(payload) + "." + B64.encodeToString(sign(payload));
+    }
+
+    /* ---------- VÉRIFICATION (locale, sans base) ---------- */
+
+    public Optional<TicketClaims> verify(String token) {
+        if (token == null || !token.startsWith(PREFIX)) return Optional.empty();
+        int dot = token.indexOf('.', PREFIX.length());
+        if (dot < 0) return Optional.empty();
+        try {
+            byte[] payload = B64D.decode(token.substring(PREFIX.length(), dot));
+            byte[] mac = B64D.decode(token.substring(dot + 1));
+            if (payload.length != 16 || !MessageDigest.isEqual(mac, sign(payload))) {
+                return Optional.empty();
+            }
+            ByteBuffer buf = ByteBuffer.wrap(payload);
+            return Optional.of(new TicketClaims(buf.getLong(), buf.getLong()));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /* ---------- Internes ---------- */
+
+    private byte[] sign(byte[] payload) {
+        byte[] full = macs.get().doFinal(payload);
+        byte[] out = new byte[MAC_BYTES];
+        System.arraycopy(full, 0, out, 0, MAC_BYTES);
+        return out;
+    }
+
+    private static byte[] derive(String secret) {
+        Mac mac = newMac(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return mac.doFinal("ticket-token".getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static Mac newMac(SecretKeySpec k) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(k);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.ticketing.ticket;
+
+import java.util.List;
+
+public record ConsumeBatchResponse(
+        int consumed,
+        int alreadyConsumed,
+        int unknown,
+        List<ConsumeOutcome> results
+) {}
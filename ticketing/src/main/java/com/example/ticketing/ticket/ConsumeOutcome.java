@@ -0,0 +1,13 @@
+package com.example.ticketing.ticket;
+
+import java.time.Instant;
+
+public record ConsumeOutcome(
+        String key,
+        Status status,
+        Long ticketId,
+        Long offerId,
+        Instant consumedAt
+) {
+    public enum Status { CONSUMED, ALREADY_CONSUMED, UNKNOWN }
+}
@@ -12,19 +12,26 @@ import java.time.Instant;
         name = "ticket",
         uniqueConstraints = {
                 @UniqueConstraint(name = "uk_ticket_final_key", columnNames = {"final_key"})
+        },
+        // listes et exports paginés par commande (keyset sur id)
+        indexes = {
+                @Index(name = "ix_ticket_order_id_id", columnList = "order_id, id")
         }
 )
 @Getter @Setter
 @NoArgsConstructor @AllArgsConstructor @Builder
 public class Ticket {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Séquence "pooled" : les ids sont connus avant l'INSERT, ce qui permet le batch JDBC
+    @Id @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_seq")
+    @SequenceGenerator(name = "ticket_seq", sequenceName = "ticket_seq", allocationSize = 50)
     private Long id;
 
-    @ManyToOne(optional = false) @JoinColumn(name = "order_id")
+    // LAZY : les lectures passent par des projections (TicketRepository), jamais par ces relations
+    @ManyToOne(optional = false, fetch = FetchType.LAZY) @JoinColumn(name = "order_id")
     private Order order;
 
-    @ManyToOne(optional = false) @JoinColumn(name = "offer_id")
+    @ManyToOne(optional = false, fetch = FetchType.LAZY) @JoinColumn(name = "offer_id")
     private Offer offer;
 
     @Column(name = "final_key", length = 64, nullable = false, unique = true)
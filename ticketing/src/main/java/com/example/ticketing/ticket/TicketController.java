@@ -1,10 +1,19 @@
 package com.example.ticketing.ticket;
 
+import com.example.ticketing.security.TicketTokenService;
 import com.example.ticketing.util.QrService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/tickets")
@@ -14,6 +23,9 @@ public class TicketController {
     private final TicketService ticketService;
     private final TicketRepository ticketRepository;
     private final QrService qrService;
+    private final TicketTokenService tokens;
+
+    private static final CacheControl QR_CACHE = CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable();
 
     @GetMapping("/verify")
     public ResponseEntity<TicketVerifyResponse> verify(@RequestParam("key") String key) {
@@ -21,19 +33,71 @@ public class TicketController {
         return ResponseEntity.ok(res);
     }
 
+    /* Jeton signé : vérifié localement, sans accès base */
+    @GetMapping("/verify-token")
+    public ResponseEntity<TicketVerifyResponse> verifyToken(@RequestParam("token") String token) {
+        return ResponseEntity.ok(ticketService.verifyToken(token));
+    }
+
     @PostMapping("/consume")
     public ResponseEntity<TicketConsumeResponse> consume(@RequestBody ConsumeRequest req) {
-        var res = ticketService.consumeByKey(req.key());
+        var res = req.token() != null
+                ? ticketService.consumeByToken(req.token())
+                : ticketService.consumeByKey(req.key());
         return ResponseEntity.ok(res);
     }
 
+    /* Rejeu d'un lot de scans (ex. après une coupure réseau) : une transaction, un résultat par clé */
+    @PostMapping("/consume/batch")
+    public ResponseEntity<ConsumeBatchResponse> consumeBatch(@RequestBody ConsumeBatchRequest req) {
+        return ResponseEntity.ok(ticketService.consumeBatch(req.keys()));
+    }
+
     @GetMapping(value = "/{ticketId}/qr.png", produces = MediaType.IMAGE_PNG_VALUE)
-    public ResponseEntity<byte[]> qrPng(@PathVariable Long ticketId) {
-        var t = ticketRepository.findById(ticketId)
-                .orElseThrow(() -> new IllegalArgumentException("Ticket introuvable"));
-        byte[] png = qrService.generatePng(t.getFinalKey(), 256);
-        return ResponseEntity.ok().contentType(MediaType.IMAGE_PNG).body(png);
+    public ResponseEntity<byte[]> qrPng(@AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+                                        @PathVariable Long ticketId,
+                                        @RequestParam(value = "payload", defaultValue = "key") String payload,
+                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Propriétaire vérifié d'abord : un 304 ne doit pas confirmer l'existence du billet d'un autre
+        var t = ownedKeyRow(user, ticketId);
+        // Le contenu d'un billet est immuable : l'ETag dépend seulement de l'id et du payload
+        String etag = "\"qr-" + ticketId + "-" + QrService.PNG_SIZE + ("token".equalsIgnoreCase(payload) ? "-token" : "") + "\"";
+        if (ifNoneMatch != null && ifNoneMatch.contains(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(QR_CACHE).build();
+        }
+        byte[] png = qrService.generatePng(qrContent(t, payload), QrService.PNG_SIZE);
+        return ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_PNG)
+                .eTag(etag)
+                .cacheControl(QR_CACHE)
+                .body(png);
     }
 
-    public record ConsumeRequest(String key) {}
+    @GetMapping(value = "/{ticketId}/qr.svg", produces = "image/svg+xml")
+    public ResponseEntity<String> qrSvg(@AuthenticationPrincipal(expression = "user") com.example.ticketing.user.User user,
+                                        @PathVariable Long ticketId,
+                                        @RequestParam(value = "payload", defaultValue = "key") String payload) {
+        var t = ownedKeyRow(user, ticketId);
+        return ResponseEntity.ok()
+                .contentType(MediaType.valueOf("image/svg+xml"))
+                .cacheControl(QR_CACHE)
+                .body(qrService.generateSvg(qrContent(t, payload)));
+    }
+
+    /* Une seule requête ; billet d'un autre = introuvable (404), comme un id inexistant */
+    private TicketKeyRow ownedKeyRow(com.example.ticketing.user.User user, Long ticketId) {
+        return ticketRepository.findOwnedKeyRow(ticketId, user.getId())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Ticket introuvable"));
+    }
+
+    /* payload=token : le QR porte le jeton signé (scanners hors ligne) au lieu de la finalKey */
+    private String qrContent(TicketKeyRow t, String payload) {
+        return "token".equalsIgnoreCase(payload)
+                ? tokens.issue(t.ticketId(), t.offerId())
+                : t.finalKey();
+    }
+
+    public record ConsumeRequest(String key, String token) {}
+
+    public record ConsumeBatchRequest(List<String> keys) {}
 }
@@ -0,0 +1,137 @@
+package com.example.ticketing.ticket;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * finalKey d'un billet : SHA-256 de "kUser:purchaseKey:offerId:index".
+ * Condensat et tampon d'entrée réutilisés par thread (ni getInstance ni concaténation par billet).
+ * Deux formats stockés :
+ *  - hex (64 caractères, historique, par défaut) ;
+ *  - base64url (43 caractères, même condensat) : index unique un tiers plus petit.
+ * En base64url, une clé hex scannée (QR déjà imprimé) est convertie avant toute recherche :
+ * les deux formats restent valides pendant et après la migration des lignes existantes.
+ */
+@Component
+public class TicketKeyGenerator {
+
+    public enum Format { HEX, BASE64URL }
+
+    static final int HEX_LENGTH = 64;
+    static final int BASE64URL_LENGTH = 43;
+
+    private static final HexFormat HEX = HexFormat.of();
+    private static final Base64.Encoder B64 = Base64.getUrlEncoder().withoutPadding();
+
+    private static final ThreadLocal<MessageDigest> DIGESTS = ThreadLocal.withInitial(TicketKeyGenerator::sha256);
+    private static final ThreadLocal<ByteBuffer> BUFFERS = ThreadLocal.withInitial(() -> ByteBuffer.allocate(256));
+
+    private final Format format;
+
+    public TicketKeyGenerator(@Value("${app.ticket.key-format:hex}") String format) {
+        this.format = Format.valueOf(format.trim().toUpperCase().replace("-", ""));
+    }
+
+    public Format format() {
+        return format;
+    }
+
+    public String generate(String kUser, String purchaseKey, long offerId, long index) {
+        String ku = (kUser == null || kUser.isBlank()) ? "nouser" : kUser;
+        // borne haute : 3 octets UTF-8 par caractère, 20 chiffres par long, 3 séparateurs
+        int max = (ku.length() + purchaseKey.length()) * 3 + 43;
+        ByteBuffer buf = BUFFERS.get();
+        if (buf.capacity() < max) {
+            buf = ByteBuffer.allocate(Math.max(max, buf.capacity() * 2));
+            BUFFERS.set(buf);
+        }
+        buf.clear();
+        putUtf8(buf, ku);
+        buf.put((byte) ':');
+        putUtf8(buf, purchaseKey);
+        buf.put((byte) ':');
+        putLong(buf, offerId);
+        buf.put((byte) ':');
+        putLong(buf, index);
+
+        MessageDigest md = DIGESTS.get();
+        md.update(buf.array(), 0, buf.position());
+        return encode(md.digest());
+    }
+
+    /** Clé scannée telle que stockée : une clé hex historique est convertie en base64url si besoin. */
+    public String canonical(String scanned) {
+        if (scanned == null) return null;
+        String key = scanned.trim();
+        if (format == Format.BASE64URL && key.length() == HEX_LENGTH) {
+            try {
+                return B64.encodeToString(HEX.parseHex(key));
+            } catch (IllegalArgumentException e) {
+                return key; // pas une clé hex : recherchée telle quelle (et introuvable)
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Formes sous lesquelles la clé scannée peut être stockée : la forme canonique, plus la
+     * forme hex d'origine tant que la migration n'a pas réécrit toutes les lignes.
+     */
+    public List<String> candidates(String scanned) {
+        String key = canonical(scanned);
+        String raw = scanned == null ? null : scanned.trim();
+        return raw == null || raw.equals(key) ? List.of(key) : List.of(key, raw);
+    }
+
+    /* ---------- Internes ---------- */
+
+    private String encode(byte[] digest) {
+        return format == Format.HEX ? HEX.formatHex(digest) : B64.encodeToString(digest);
+    }
+
+    // ASCII écrit directement ; le reste (kUser non ASCII) passe par l'encodeur UTF-8
+    private static void putUtf8(ByteBuffer buf, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c >= 0x80) {
+                buf.put(s.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            buf.put((byte) c);
+        }
+    }
+
+    private static void putLong(ByteBuffer buf, long v) {
+        if (v < 0) {
+            putUtf8(buf, Long.toString(v));
+            return;
+        }
+        int start = buf.position();
+        do {
+            buf.put((byte) ('0' + (int) (v % 10)));
+            v /= 10;
+        } while (v != 0);
+        // chiffres écrits à l'envers : inversion en place
+        for (int i = start, j = buf.position() - 1; i < j; i++, j--) {
+            byte t = buf.get(i);
+            buf.put(i, buf.get(j));
+            buf.put(j, t);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ticketing.ticket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Réécriture des finalKey hex historiques en base64url (app.ticket.key-migrate=true, format base64url).
+ * Par lots ordonnés par id, chaque lot dans sa propre transaction : reprenable à tout moment.
+ * Les QR déjà imprimés restent valides, la clé hex scannée étant convertie avant la recherche.
+ */
+@Component
+public class TicketKeyMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(TicketKeyMigration.class);
+
+    private final JdbcTemplate jdbc;
+    private final TicketKeyGenerator keys;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public TicketKeyMigration(JdbcTemplate jdbc,
+                              TicketKeyGenerator keys,
+                              @Value("${app.ticket.key-migrate:false}") boolean enabled,
+                              @Value("${app.ticket.key-migrate-batch:1000}") int batchSize) {
+        this.jdbc = jdbc;
+        this.keys = keys;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (enabled && keys.format() == TicketKeyGenerator.Format.BASE64URL) migrate();
+    }
+
+    /** Renvoie le nombre de clés converties. */
+    public long migrate() {
+        long total = 0;
+        long after = 0;
+        while (true) {
+            List<Object[]> rows = jdbc.query(
+                    "select id, final_key from ticket where id > ? and char_length(final_key) = ? order by id limit ?",
+                    (rs, i) -> new Object[]{rs.getLong(1), rs.getString(2)},
+                    after, TicketKeyGenerator.HEX_LENGTH, batchSize);
+            if (rows.isEmpty()) break;
+
+            jdbc.batchUpdate("update ticket set final_key = ? where id = ? and final_key = ?",
+                    rows.stream().map(r -> new Object[]{keys.canonical((String) r[1]), r[0], r[1]}).toList());
+            total += rows.size();
+            after = (Long) rows.get(rows.size() - 1)[0];
+        }
+        if (total > 0) log.info("finalKey : {} clés hex converties en base64url", total);
+        return total;
+    }
+}
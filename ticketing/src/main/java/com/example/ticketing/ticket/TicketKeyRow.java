@@ -0,0 +1,5 @@
+package com.example.ticketing.ticket;
+
+import java.time.Instant;
+
+public record TicketKeyRow(Long ticketId, Long offerId, String finalKey, Instant consumedAt) {}
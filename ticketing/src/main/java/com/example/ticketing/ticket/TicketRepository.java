@@ -1,60 +1,91 @@
 package com.example.ticketing.ticket;
 
-import com.example.ticketing.admin.dto.SalesStat;
-import com.example.ticketing.order.Order;
-import org.springframework.beans.factory.annotation.Value;
+import com.example.ticketing.order.dto.IssuedTicket;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface TicketRepository extends JpaRepository<Ticket, Long> {
-    /* -------- Tickets d'une commande (entité Order) -------- */
-    List<Ticket> findByOrderOrderByIdAsc(Order order);
+    /* -------- Tickets d'une commande avec le nom de l'offre (une requête par page) -------- */
+    @Query("""
+        select new com.example.ticketing.ticket.TicketRow(t.id, o.id, o.name, t.finalKey, t.consumedAt)
+          from Ticket t
+          join t.offer o
+         where t.order.id = :orderId
+           and t.id > :afterId
+         order by t.id asc
+        """)
+    List<TicketRow> findRowsByOrderId(@Param("orderId") Long orderId, @Param("afterId") Long afterId, Pageable page);
 
-    /* -------- Tickets d'une commande par id (projection légère) -------- */
-    List<TicketRow> findAllByOrderIdOrderByIdAsc(Long orderId);
+    /* -------- Tickets d'une commande par pages (exports en flux) -------- */
+    @Query("""
+        select new com.example.ticketing.order.dto.IssuedTicket(t.id, t.offer.id, t.finalKey)
+          from Ticket t
+         where t.order.id = :orderId
+           and t.id > :afterId
+         order by t.id asc
+        """)
+    List<IssuedTicket> findIssuedPage(@Param("orderId") Long orderId, @Param("afterId") Long afterId, Pageable page);
 
     /* -------- Recherche/contrôle par finalKey -------- */
     Optional<Ticket> findByFinalKey(String finalKey);
+
+    @Query("""
+        select new com.example.ticketing.ticket.TicketVerifyResponse(true, t.id, t.offer.id, t.consumedAt)
+          from Ticket t
+         where t.finalKey in :finalKeys
+        """)
+    Optional<TicketVerifyResponse> findVerifyByFinalKeys(@Param("finalKeys") Collection<String> finalKeys);
     Optional<Ticket> findByFinalKeyAndConsumedAtIsNull(String finalKey);
     boolean existsByFinalKey(String finalKey);
 
-    /* -------- Consommation atomique -------- */
+    /* -------- Consommation atomique (formes possibles d'une même clé, cf. TicketKeyGenerator) -------- */
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("""
         update Ticket t
            set t.consumedAt = :now
-         where t.finalKey = :finalKey
+         where t.finalKey in :finalKeys
            and t.consumedAt is null
         """)
-    int consumeOnce(@Param("finalKey") String finalKey, @Param("now") Instant now);
+    int consumeOnce(@Param("finalKeys") Collection<String> finalKeys, @Param("now") Instant now);
 
-    /* -------- Stats admin : ventes par offre -------- */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("""
-        select new com.example.ticketing.admin.dto.SalesStat(
-            t.offer.id, t.offer.name, count(t)
-        )
-          from Ticket t
-      group by t.offer.id, t.offer.name
-      order by t.offer.id asc
+        update Ticket t
+           set t.consumedAt = :now
+         where t.id = :ticketId
+           and t.consumedAt is null
         """)
-    List<SalesStat> findSalesByOffer();
+    int consumeOnceById(@Param("ticketId") Long ticketId, @Param("now") Instant now);
 
-    boolean existsByOfferId(Long offerId);
+    @Query("""
+        select new com.example.ticketing.ticket.TicketKeyRow(t.id, t.offer.id, t.finalKey, t.consumedAt)
+          from Ticket t
+         where t.finalKey in :finalKeys
+        """)
+    List<TicketKeyRow> findKeyRows(@Param("finalKeys") Collection<String> finalKeys);
 
-    /* ========= Projections ========= */
-    interface TicketRow {
-        Long getId();
+    /* Billet de l'utilisateur seulement : vide si le billet n'existe pas ou appartient à un autre */
+    @Query("""
+        select new com.example.ticketing.ticket.TicketKeyRow(t.id, t.offer.id, t.finalKey, t.consumedAt)
+          from Ticket t
+         where t.id = :ticketId
+           and t.order.user.id = :userId
+        """)
+    Optional<TicketKeyRow> findOwnedKeyRow(@Param("ticketId") Long ticketId, @Param("userId") Long userId);
 
-        @Value("#{target.offer.id}")
-        Long getOfferId();
+    @Query("select t.finalKey from Ticket t where t.id = :ticketId")
+    Optional<String> findFinalKeyById(@Param("ticketId") Long ticketId);
 
-        String getFinalKey();
-        Instant getConsumedAt();
-    }
+    boolean existsByOfferId(Long offerId);
+    long countByOfferId(Long offerId);
+    long countByOrderId(Long orderId);
+    long countByOfferIdAndConsumedAtIsNotNull(Long offerId);
 }
@@ -0,0 +1,12 @@
+package com.example.ticketing.ticket;
+
+import java.time.Instant;
+
+/** Ligne de liste des billets d'une commande (projection JPQL, offre jointe). */
+public record TicketRow(
+        Long id,
+        Long offerId,
+        String offerName,
+        String finalKey,
+        Instant consumedAt
+) {}
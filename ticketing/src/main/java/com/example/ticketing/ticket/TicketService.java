@@ -1,35 +1,50 @@
 package com.example.ticketing.ticket;
 
+import com.example.ticketing.inventory.InventoryService;
+import com.example.ticketing.outbox.Outbox;
+import com.example.ticketing.security.TicketTokenService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.sql.Statement;
+import java.sql.Timestamp;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class TicketService {
 
+    private static final int MAX_BATCH = 1000;
+    private static final TicketVerifyResponse INVALID = new TicketVerifyResponse(false, null, null, null);
+
     private final TicketRepository ticketRepo;
+    private final TicketVerifyCache verifyCache;
+    private final TicketTokenService tokens;
+    private final JdbcTemplate jdbc;
+    private final InventoryService inventory;
+    private final Outbox outbox;
+    private final TicketKeyGenerator keyFormat;
 
     /* ----------- Vérifier un ticket par sa finalKey ----------- */
-    @Transactional(readOnly = true)
     public TicketVerifyResponse verifyByKey(String finalKey) {
         if (finalKey == null || finalKey.isBlank()) {
-            return new TicketVerifyResponse(false, null, null, null);
+            return INVALID;
         }
 
-        var ticketOpt = ticketRepo.findByFinalKey(finalKey.trim());
-        var t = ticketOpt.orElse(null);
-
-        boolean valid = t != null;
-        Long ticketId = (t != null) ? t.getId() : null;
-        Long offerId  = (t != null && t.getOffer() != null) ? t.getOffer().getId() : null;
-        Instant consumedAt = (t != null) ? t.getConsumedAt() : null;
-
-        return new TicketVerifyResponse(valid, ticketId, offerId, consumedAt);
+        // cache d'abord ; en cas d'absence, une projection (sans chargement de l'Offer)
+        var res = verifyCache.get(keyFormat.canonical(finalKey),
+                k -> ticketRepo.findVerifyByFinalKeys(keyFormat.candidates(finalKey)).orElse(null));
+        return res != null ? res : INVALID;
     }
 
     /* ----------- Consommer un ticket par sa finalKey ----------- */
@@ -39,17 +54,105 @@ public class TicketService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "clé manquante");
         }
 
-        var t = ticketRepo.findByFinalKeyAndConsumedAtIsNull(finalKey.trim())
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.BAD_REQUEST, "Ticket introuvable ou déjà consommé"));
+        // UPDATE conditionnel : une seule instruction décide du gagnant, sans chargement d'entité
+        String key = keyFormat.canonical(finalKey);
+        List<String> stored = keyFormat.candidates(finalKey);
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        if (ticketRepo.consumeOnce(stored, now) == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket introuvable ou déjà consommé");
+        }
+
+        var row = ticketRepo.findVerifyByFinalKeys(stored).orElseThrow();
+        inventory.recordConsumed(row.offerId(), 1);
+        outbox.ticketsConsumed(List.of(new Outbox.TicketConsumed(row.ticketId(), row.offerId(), now)));
+        verifyCache.putAfterCommit(key, new TicketVerifyResponse(true, row.ticketId(), row.offerId(), now));
+
+        return new TicketConsumeResponse(row.ticketId(), row.offerId(), now);
+    }
+
+    /* ----------- Jeton signé : vérification locale, sans base ----------- */
+    public TicketVerifyResponse verifyToken(String token) {
+        return tokens.verify(token == null ? null : token.trim())
+                .map(c -> new TicketVerifyResponse(true, c.ticketId(), c.offerId(), null))
+                .orElse(INVALID);
+    }
+
+    /* ----------- Jeton signé : seule la consommation (anti-rejeu) touche la base ----------- */
+    @Transactional
+    public TicketConsumeResponse consumeByToken(String token) {
+        var claims = tokens.verify(token == null ? null : token.trim())
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "Jeton invalide"));
+
+        Instant now = Instant.now().truncatedTo(ChronoUnit.MICROS);
+        if (ticketRepo.consumeOnceById(claims.ticketId(), now) == 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Ticket introuvable ou déjà consommé");
+        }
+        ticketRepo.findFinalKeyById(claims.ticketId()).map(keyFormat::canonical).ifPresent(verifyCache::evictAfterCommit);
+        inventory.recordConsumed(claims.offerId(), 1);
+        outbox.ticketsConsumed(List.of(new Outbox.TicketConsumed(claims.ticketId(), claims.offerId(), now)));
+
+        return new TicketConsumeResponse(claims.ticketId(), claims.offerId(), now);
+    }
 
-        t.setConsumedAt(Instant.now());
-        ticketRepo.save(t);
+    /* ----------- Consommation en lot (rejeu des scans mis en tampon) ----------- */
+    @Transactional
+    public ConsumeBatchResponse consumeBatch(List<String> rawKeys) {
+        // clé stockée -> clé scannée (rapportée telle quelle dans la réponse)
+        Map<String, String> keys = new LinkedHashMap<>();
+        if (rawKeys != null) {
+            for (String k : rawKeys) {
+                if (k != null && !k.isBlank()) keys.putIfAbsent(keyFormat.canonical(k), k.trim());
+            }
+        }
+        if (keys.size() > MAX_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Lot trop volumineux (max " + MAX_BATCH + ")");
+        }
+        if (keys.isEmpty()) {
+            return new ConsumeBatchResponse(0, 0, 0, List.of());
+        }
+
+        // un seul aller-retour JDBC pour toutes les mises à jour conditionnelles
+        Timestamp now = Timestamp.from(Instant.now().truncatedTo(ChronoUnit.MICROS));
+        List<String> ordered = List.copyOf(keys.keySet());
+        // forme canonique, ou forme hex d'origine d'une ligne pas encore migrée
+        int[] counts = jdbc.batchUpdate(
+                "update ticket set consumed_at = ? where final_key in (?, ?) and consumed_at is null",
+                ordered.stream().map(k -> new Object[]{now, k, keys.get(k)}).toList());
 
-        return new TicketConsumeResponse(
-                t.getId(),
-                (t.getOffer() != null ? t.getOffer().getId() : null),
-                t.getConsumedAt()
-        );
+        // puis une seule lecture pour qualifier les clés non consommées par ce lot
+        List<String> stored = new ArrayList<>(keys.keySet());
+        for (String k : ordered) if (!k.equals(keys.get(k))) stored.add(keys.get(k));
+        Map<String, TicketKeyRow> rows = new HashMap<>();
+        for (TicketKeyRow r : ticketRepo.findKeyRows(stored)) rows.put(r.finalKey(), r);
+
+        List<ConsumeOutcome> results = new ArrayList<>(ordered.size());
+        Map<Long, Long> consumedByOffer = new HashMap<>();
+        List<Outbox.TicketConsumed> events = new ArrayList<>();
+        int consumed = 0, already = 0, unknown = 0;
+        for (int i = 0; i < ordered.size(); i++) {
+            String key = ordered.get(i);
+            TicketKeyRow r = rows.getOrDefault(key, rows.get(keys.get(key)));
+            if (r == null) {
+                unknown++;
+                results.add(new ConsumeOutcome(keys.get(key), ConsumeOutcome.Status.UNKNOWN, null, null, null));
+                continue;
+            }
+            boolean mine = counts[i] > 0
+                    || (counts[i] == Statement.SUCCESS_NO_INFO && now.toInstant().equals(r.consumedAt()));
+            if (mine) {
+                consumed++;
+                consumedByOffer.merge(r.offerId(), 1L, Long::sum);
+                events.add(new Outbox.TicketConsumed(r.ticketId(), r.offerId(), r.consumedAt()));
+                verifyCache.putAfterCommit(key, new TicketVerifyResponse(true, r.ticketId(), r.offerId(), r.consumedAt()));
+            } else {
+                already++;
+            }
+            results.add(new ConsumeOutcome(keys.get(key),
+                    mine ? ConsumeOutcome.Status.CONSUMED : ConsumeOutcome.Status.ALREADY_CONSUMED,
+                    r.ticketId(), r.offerId(), r.consumedAt()));
+        }
+        consumedByOffer.forEach(inventory::recordConsumed);
+        outbox.ticketsConsumed(events);
+        return new ConsumeBatchResponse(consumed, already, unknown, results);
     }
 }
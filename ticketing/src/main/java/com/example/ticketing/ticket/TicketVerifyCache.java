@@ -0,0 +1,63 @@
+package com.example.ticketing.ticket;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Index mémoire finalKey -> (ticketId, offerId, consumedAt) pour les scans aux portes.
+ * Lecture "read-through" ; les consommations mettent l'entrée à jour après commit.
+ * Le TTL borne la fraîcheur des entrées modifiées par une autre instance.
+ * Métriques : cache.gets{cache=ticket.verify,result=hit|miss}.
+ */
+@Component
+public class TicketVerifyCache {
+
+    private final Cache<String, TicketVerifyResponse> cache;
+
+    public TicketVerifyCache(@Value("${app.verify-cache.max-entries:500000}") long maxEntries,
+                             @Value("${app.verify-cache.ttl-seconds:60}") long ttlSeconds,
+                             MeterRegistry registry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(registry, cache, "ticket.verify");
+    }
+
+    /** Clé inconnue : le loader renvoie null et rien n'est mis en cache. */
+    public TicketVerifyResponse get(String finalKey, Function<String, TicketVerifyResponse> loader) {
+        return cache.get(finalKey, loader);
+    }
+
+    /** Met à jour l'entrée une fois la transaction courante validée. */
+    public void putAfterCommit(String finalKey, TicketVerifyResponse value) {
+        afterCommit(() -> cache.put(finalKey, value));
+    }
+
+    public void evictAfterCommit(String finalKey) {
+        afterCommit(() -> cache.invalidate(finalKey));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.ticketing.util;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * Page d'une pagination par curseur (keyset) : "id < :cursor" ou "id > :cursor", jamais d'OFFSET.
+ * On lit limit + 1 lignes ; la ligne en trop indique qu'une page suivante existe.
+ * Le curseur suivant est renvoyé dans l'en-tête X-Next-Cursor, le corps reste un tableau.
+ */
+public record KeysetPage<T>(List<T> items, Long nextCursor) {
+
+    public static final String NEXT_CURSOR = "X-Next-Cursor";
+    public static final int MAX_LIMIT = 1000;
+
+    /** limit borné à [1, MAX_LIMIT], défaut si absent */
+    public static int limit(Integer requested, int defaultLimit) {
+        int l = requested == null ? defaultLimit : requested;
+        return Math.min(Math.max(l, 1), MAX_LIMIT);
+    }
+
+    /** Une ligne de plus que la page, pour savoir s'il en reste. */
+    public static Pageable probe(int limit) {
+        return PageRequest.of(0, limit + 1);
+    }
+
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, ToLongFunction<T> id) {
+        if (rows.size() <= limit) return new KeysetPage<>(rows, null);
+        List<T> page = rows.subList(0, limit);
+        return new KeysetPage<>(page, id.applyAsLong(page.get(limit - 1)));
+    }
+
+    public <R> ResponseEntity<List<R>> toResponse(List<R> body) {
+        ResponseEntity.BodyBuilder res = ResponseEntity.ok();
+        if (nextCursor != null) res.header(NEXT_CURSOR, String.valueOf(nextCursor));
+        return res.body(body);
+    }
+
+    public ResponseEntity<List<T>> toResponse() {
+        return toResponse(items);
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.ticketing.util;
+
+import com.google.zxing.WriterException;
+import com.google.zxing.qrcode.decoder.ErrorCorrectionLevel;
+import com.google.zxing.qrcode.encoder.ByteMatrix;
+import com.google.zxing.qrcode.encoder.Encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Encodeur QR -> PNG 1 bit (niveaux de gris) écrit directement depuis la matrice de modules,
+ * sans BufferedImage ni ImageIO. Même rendu que MultiFormatWriter + MatrixToImageWriter
+ * (correction L, zone blanche de 4 modules, mise à l'échelle entière centrée).
+ * Tampons de ligne réutilisés par thread ; un Deflater par image, libéré (end) aussitôt :
+ * sa mémoire zlib native n'attend pas la finalisation du GC sur les threads du pool.
+ */
+final class QrPngEncoder {
+
+    private static final int QUIET_ZONE = 4;
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n'};
+    private static final byte[] IHDR = "IHDR".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IDAT = "IDAT".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] IEND = "IEND".getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<Buffers> BUFFERS = ThreadLocal.withInitial(Buffers::new);
+
+    private QrPngEncoder() {}
+
+    static ByteMatrix modules(String content) {
+        try {
+            return Encoder.encode(content, ErrorCorrectionLevel.L).getMatrix();
+        } catch (WriterException e) {
+            throw new IllegalArgumentException("Contenu QR invalide", e);
+        }
+    }
+
+    static byte[] png(String content, int size) {
+        ByteMatrix m = modules(content);
+        int modules = m.getWidth();
+        int side = Math.max(size, modules + QUIET_ZONE * 2);
+        int scale = side / (modules + QUIET_ZONE * 2);
+        int pad = (side - modules * scale) / 2;
+        int rowBytes = (side + 7) / 8;
+
+        Buffers b = BUFFERS.get();
+        byte[] white = b.row(0, rowBytes + 1);
+        Arrays.fill(white, (byte) 0xFF);
+        white[0] = 0; // filtre PNG "None"
+        byte[] line = b.row(1, rowBytes + 1);
+
+        b.idat.reset();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            for (int y = 0; y < side; y++) {
+                int my = y - pad;
+                if (my < 0 || my >= modules * scale) {
+                    deflate(deflater, b, white);
+                    continue;
+                }
+                if (my % scale == 0) {
+                    // ligne de modules calculée une fois, répétée "scale" fois
+                    System.arraycopy(white, 0, line, 0, line.length);
+                    int moduleY = my / scale;
+                    for (int mx = 0; mx < modules; mx++) {
+                        if (m.get(mx, moduleY) != 1) continue;
+                        int x0 = pad + mx * scale;
+                        for (int x = x0; x < x0 + scale; x++) {
+                            line[1 + (x >> 3)] &= (byte) ~(0x80 >>> (x & 7));
+                        }
+                    }
+                }
+                deflate(deflater, b, line);
+            }
+            deflater.finish();
+            while (!deflater.finished()) {
+                int n = deflater.deflate(b.chunk);
+                b.idat.write(b.chunk, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(b.idat.size() + 64);
+        out.writeBytes(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, side);
+        putInt(header, 4, side);
+        header[8] = 1;  // profondeur 1 bit
+        header[9] = 0;  // niveaux de gris
+        chunk(out, b.crc, IHDR, header, header.length);
+        chunk(out, b.crc, IDAT, b.idat.buffer(), b.idat.size());
+        chunk(out, b.crc, IEND, new byte[0], 0);
+        return out.toByteArray();
+    }
+
+    static String svg(String content) {
+        ByteMatrix m = modules(content);
+        int modules = m.getWidth();
+        int side = modules + QUIET_ZONE * 2;
+        StringBuilder sb = new StringBuilder(modules * modules * 4);
+        sb.append("<svg xmlns=\"http://www.w3.org/2000/svg\" viewBox=\"0 0 ").append(side).append(' ').append(side)
+                .append("\" shape-rendering=\"crispEdges\"><rect width=\"100%\" height=\"100%\" fill=\"#fff\"/><path d=\"");
+        for (int y = 0; y < modules; y++) {
+            int x = 0;
+            while (x < modules) {
+                if (m.get(x, y) != 1) { x++; continue; }
+                int start = x;
+                while (x < modules && m.get(x, y) == 1) x++;
+                sb.append('M').append(start + QUIET_ZONE).append(' ').append(y + QUIET_ZONE)
+                        .append('h').append(x - start).append("v1h-").append(x - start).append('z');
+            }
+        }
+        return sb.append("\"/></svg>").toString();
+    }
+
+    /* ---------- Internes ---------- */
+
+    private static void deflate(Deflater deflater, Buffers b, byte[] row) {
+        deflater.setInput(row);
+        while (!deflater.needsInput()) {
+            int n = deflater.deflate(b.chunk);
+            b.idat.write(b.chunk, 0, n);
+        }
+    }
+
+    private static void chunk(ByteArrayOutputStream out, CRC32 crc, byte[] type, byte[] data, int len) {
+        byte[] lenBytes = new byte[4];
+        putInt(lenBytes, 0, len);
+        out.writeBytes(lenBytes);
+        out.writeBytes(type);
+        out.write(data, 0, len);
+        crc.reset();
+        crc.update(type);
+        crc.update(data, 0, len);
+        byte[] crcBytes = new byte[4];
+        putInt(crcBytes, 0, (int) crc.getValue());
+        out.writeBytes(crcBytes);
+    }
+
+    private static void putInt(byte[] dst, int off, int v) {
+        dst[off] = (byte) (v >>> 24);
+        dst[off + 1] = (byte) (v >>> 16);
+        dst[off + 2] = (byte) (v >>> 8);
+        dst[off + 3] = (byte) v;
+    }
+
+    /* Tampons réutilisés par thread */
+    private static final class Buffers {
+        final CRC32 crc = new CRC32();
+        final byte[] chunk = new byte[8192];
+        final ExposedBuffer idat = new ExposedBuffer();
+        private final byte[][] rows = new byte[2][];
+
+        byte[] row(int i, int len) {
+            if (rows[i] == null || rows[i].length != len) rows[i] = new byte[len];
+            return rows[i];
+        }
+    }
+
+    private static final class ExposedBuffer extends ByteArrayOutputStream {
+        ExposedBuffer() {
+            super(4096);
+        }
+
+        byte[] buffer() {
+            return buf;
+        }
+    }
+}
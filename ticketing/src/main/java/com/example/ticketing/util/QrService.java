@@ -1,28 +1,93 @@
 package com.example.ticketing.util;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.MultiFormatWriter;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayOutputStream;
-import java.util.Base64;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.regex.Pattern;
 
+/**
+ * Rendu PNG des QR codes via {@link QrPngEncoder}. Le contenu (finalKey) d'un billet
+ * ne change jamais : les PNG sont gardés dans un cache mémoire borné en octets (éviction W-TinyLFU)
+ * et, si app.qr.disk-dir est renseigné, pré-rendus sur disque.
+ */
 @Component
 public class QrService {
+
+    private static final Logger log = LoggerFactory.getLogger(QrService.class);
+
+    /** Taille des PNG de billet (checkout, qr.png, export ZIP) : une seule valeur, donc une seule entrée de cache par billet */
+    public static final int PNG_SIZE = 256;
+
+    // seules les clés "sûres" servent de nom de fichier
+    private static final Pattern SAFE_NAME = Pattern.compile("[A-Za-z0-9_-]{1,128}");
+
+    private final Cache<QrKey, byte[]> cache;
+    private final Path diskDir;
+
+    public QrService(@Value("${app.qr.cache.max-bytes:33554432}") long maxBytes,
+                     @Value("${app.qr.disk-dir:}") String diskDir) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((QrKey k, byte[] v) -> v.length)
+                .build();
+        this.diskDir = StringUtils.hasText(diskDir) ? Path.of(diskDir) : null;
+    }
+
     public byte[] generatePng(String content, int size) {
+        return cache.get(new QrKey(content, size), this::load);
+    }
+
+    /** Version vectorielle (quelques centaines d'octets), pour les clients qui la mettent à l'échelle. */
+    public String generateSvg(String content) {
+        return QrPngEncoder.svg(content);
+    }
+
+    /* Octets réellement retenus en mémoire, après les évictions en attente */
+    long cachedBytes() {
+        cache.cleanUp();
+        return cache.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L);
+    }
+
+    /* ---------- Internes ---------- */
+
+    private byte[] load(QrKey k) {
+        Path file = fileFor(k);
+        if (file != null && Files.isRegularFile(file)) {
+            try {
+                return Files.readAllBytes(file);
+            } catch (IOException e) {
+                log.warn("QR illisible sur disque {}: {}", file, e.getMessage());
+            }
+        }
+        byte[] png = QrPngEncoder.png(k.content(), k.size());
+        if (file != null) store(file, png);
+        return png;
+    }
+
+    private Path fileFor(QrKey k) {
+        if (diskDir == null || !SAFE_NAME.matcher(k.content()).matches()) return null;
+        return diskDir.resolve(Integer.toString(k.size())).resolve(k.content() + ".png");
+    }
+
+    private void store(Path file, byte[] png) {
         try {
-            BitMatrix m = new MultiFormatWriter()
-                    .encode(content, BarcodeFormat.QR_CODE, size, size);
-            BufferedImage img = MatrixToImageWriter.toBufferedImage(m);
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            ImageIO.write(img, "png", out);
-            return out.toByteArray();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "qr", ".tmp");
+            Files.write(tmp, png);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            log.warn("QR non écrit sur disque {}: {}", file, e.getMessage());
         }
     }
+
+    private record QrKey(String content, int size) {}
 }
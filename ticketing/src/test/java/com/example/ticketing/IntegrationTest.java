@@ -0,0 +1,29 @@
+package com.example.ticketing;
+
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.annotation.AliasFor;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Test d'intégration sur le profil dev + test (application-test.yml) avec {@link TestData}.
+ * Les classes sans {@link #properties()} partagent le même contexte Spring et la même base ;
+ * n'en déclarer que pour une configuration réellement différente (nouveau contexte).
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@SpringBootTest
+@ActiveProfiles({"dev", "test"})
+@AutoConfigureMockMvc
+@Import(TestData.class)
+public @interface IntegrationTest {
+
+    @AliasFor(annotation = SpringBootTest.class)
+    String[] properties() default {};
+}
@@ -0,0 +1,71 @@
+package com.example.ticketing;
+
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.offer.OfferService;
+import com.example.ticketing.order.OrderService;
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.order.dto.CheckoutResponse;
+import com.example.ticketing.order.dto.IssuedTicket;
+import com.example.ticketing.security.JwtService;
+import com.example.ticketing.user.User;
+import com.example.ticketing.user.UserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.test.context.TestComponent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Jeu de données des tests d'intégration : chaque appel crée des lignes neuves (e-mail et
+ * code d'offre uniques), les classes peuvent donc partager la même base.
+ */
+@TestComponent
+@RequiredArgsConstructor
+public class TestData {
+
+    private final UserRepository users;
+    private final OfferService offerService;
+    private final OrderService orderService;
+    private final JwtService jwt;
+
+    public User buyer() {
+        return user("ROLE_USER");
+    }
+
+    public User user(String role) {
+        return users.save(User.builder()
+                .email(UUID.randomUUID() + "@test.fr")
+                .passwordHash("x")
+                .roles(new ArrayList<>(List.of(role)))
+                .build());
+    }
+
+    public String bearer(User user) {
+        return "Bearer " + jwt.generate(user);
+    }
+
+    /* Offre active dédiée, stock ouvert ; capacity null : illimitée */
+    public Offer offer(Integer capacity) {
+        return offerService.create(Offer.builder()
+                .code("TEST-" + UUID.randomUUID().toString().substring(0, 8))
+                .name("Finale")
+                .description("")
+                .seats(1)
+                .priceCents(1000)
+                .capacity(capacity)
+                .active(true)
+                .build());
+    }
+
+    /* Commande payée de qty billets, sans QR inline */
+    public CheckoutResponse paidOrder(User buyer, Offer offer, int qty) {
+        return orderService.checkout(buyer,
+                new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), qty))), false);
+    }
+
+    public List<IssuedTicket> tickets(CheckoutResponse order) {
+        return orderService.ticketPage(order.orderId(), 0L, order.tickets().size());
+    }
+}
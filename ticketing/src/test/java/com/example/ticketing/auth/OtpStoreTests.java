@@ -0,0 +1,122 @@
+package com.example.ticketing.auth;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Les deux stores OTP : code à usage unique, brûlé après app.otp.max-attempts échecs,
+ * y compris sous saisies concurrentes (le store en base est celui des déploiements multi-instances).
+ */
+@IntegrationTest(properties = {
+        "app.otp.store=db",
+        "app.otp.max-attempts=3"
+})
+class OtpStoreTests {
+
+    private static final int THREADS = 8;
+
+    @Autowired OtpStore dbStore;
+    @Autowired TestData data;
+
+    @Test
+    void usesTheDatabaseStore() {
+        assertThat(dbStore).isInstanceOf(JpaOtpStore.class);
+    }
+
+    @Test
+    void dbCodeIsSingleUseAndBurnedAfterMaxAttempts() {
+        singleUseAndBurned(dbStore, data.buyer());
+    }
+
+    @Test
+    void memoryCodeIsSingleUseAndBurnedAfterMaxAttempts() {
+        singleUseAndBurned(new InMemoryOtpStore(3), data.buyer());
+    }
+
+    @Test
+    void dbParallelGuessesCannotExceedMaxAttempts() throws Exception {
+        parallelGuesses(dbStore, data.buyer());
+    }
+
+    @Test
+    void memoryParallelGuessesCannotExceedMaxAttempts() throws Exception {
+        parallelGuesses(new InMemoryOtpStore(3), data.buyer());
+    }
+
+    @Test
+    void dbParallelRightCodeIsAcceptedOnce() throws Exception {
+        parallelRightCode(dbStore, data.buyer());
+    }
+
+    @Test
+    void memoryParallelRightCodeIsAcceptedOnce() throws Exception {
+        parallelRightCode(new InMemoryOtpStore(3), data.buyer());
+    }
+
+    private static void singleUseAndBurned(OtpStore store, User user) {
+        assertThat(store.verify(user, "123456")).isEqualTo(OtpStore.Result.NOT_FOUND);
+
+        store.issue(user, "123456", Instant.now().plusSeconds(60));
+        assertThat(store.verify(user, "000000")).isEqualTo(OtpStore.Result.INVALID);
+        assertThat(store.verify(user, "123456")).isEqualTo(OtpStore.Result.OK);
+        assertThat(store.verify(user, "123456")).isNotEqualTo(OtpStore.Result.OK);
+
+        store.issue(user, "654321", Instant.now().plusSeconds(60));
+        assertThat(store.verify(user, "000000")).isEqualTo(OtpStore.Result.INVALID);
+        assertThat(store.verify(user, "000001")).isEqualTo(OtpStore.Result.INVALID);
+        assertThat(store.verify(user, "000002")).isEqualTo(OtpStore.Result.TOO_MANY_ATTEMPTS);
+        // brûlé : même le bon code ne passe plus
+        assertThat(store.verify(user, "654321")).isNotEqualTo(OtpStore.Result.OK);
+
+        store.issue(user, "111111", Instant.now().minusSeconds(1));
+        assertThat(store.verify(user, "111111")).isEqualTo(OtpStore.Result.EXPIRED);
+    }
+
+    private static void parallelGuesses(OtpStore store, User user) throws Exception {
+        store.issue(user, "123456", Instant.now().plusSeconds(60));
+        List<OtpStore.Result> results = race(() -> store.verify(user, "000000"));
+
+        // 3 essais au plus : 2 refus, 1 code brûlé, le reste ne trouve plus de code valide
+        assertThat(results).filteredOn(r -> r == OtpStore.Result.INVALID).hasSize(2);
+        assertThat(results).filteredOn(r -> r == OtpStore.Result.TOO_MANY_ATTEMPTS).hasSize(1);
+        assertThat(store.verify(user, "123456")).isNotEqualTo(OtpStore.Result.OK);
+    }
+
+    private static void parallelRightCode(OtpStore store, User user) throws Exception {
+        store.issue(user, "123456", Instant.now().plusSeconds(60));
+        List<OtpStore.Result> results = race(() -> store.verify(user, "123456"));
+        assertThat(results).filteredOn(r -> r == OtpStore.Result.OK).hasSize(1);
+    }
+
+    private static List<OtpStore.Result> race(Callable<OtpStore.Result> call) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<OtpStore.Result>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            futures.add(pool.submit(() -> {
+                go.await();
+                return call.call();
+            }));
+        }
+        go.countDown();
+        List<OtpStore.Result> results = new ArrayList<>();
+        for (Future<OtpStore.Result> f : futures) results.add(f.get(60, TimeUnit.SECONDS));
+        pool.shutdown();
+        return results;
+    }
+}
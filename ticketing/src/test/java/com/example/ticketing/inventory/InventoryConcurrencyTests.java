@@ -0,0 +1,76 @@
+package com.example.ticketing.inventory;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.order.OrderService;
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.ticket.TicketRepository;
+import com.example.ticketing.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * N checkouts parallèles sur une même offre : jamais plus de billets que la capacité.
+ */
+@IntegrationTest
+class InventoryConcurrencyTests {
+
+    private static final int CAPACITY = 60;
+    private static final int BUYERS = 200;
+
+    @Autowired OrderService orderService;
+    @Autowired InventoryService inventory;
+    @Autowired TicketRepository tickets;
+    @Autowired TestData data;
+
+    @Test
+    void parallelCheckoutsNeverOversell() throws Exception {
+        Offer offer = data.offer(CAPACITY);
+        User buyer = data.buyer();
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger refused = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < BUYERS; i++) {
+            int qty = 1 + i % 3;
+            futures.add(pool.submit(() -> {
+                go.await();
+                try {
+                    var res = orderService.checkout(buyer,
+                            new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), qty))));
+                    sold.addAndGet(res.tickets().size());
+                } catch (ResponseStatusException e) {
+                    assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+                    refused.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        go.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(sold.get()).isEqualTo(CAPACITY);
+        assertThat(tickets.countByOfferId(offer.getId())).isEqualTo(CAPACITY);
+        assertThat(inventory.remaining(offer.getId())).isZero();
+        assertThat(refused.get()).isPositive();
+
+        // compteurs de ventes tenus par les mêmes UPDATE que le stock (échecs rendus compris)
+        var stat = inventory.sales().stream().filter(s -> s.offerId().equals(offer.getId())).findFirst().orElseThrow();
+        assertThat(stat.ticketsSold()).isEqualTo(CAPACITY);
+        assertThat(stat.revenueCents()).isEqualTo(CAPACITY * 1000L);
+    }
+}
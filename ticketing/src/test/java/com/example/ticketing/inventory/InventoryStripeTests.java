@@ -0,0 +1,112 @@
+package com.example.ticketing.inventory;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.offer.OfferRepository;
+import com.example.ticketing.offer.OfferService;
+import com.example.ticketing.ticket.TicketRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Offre jamais ouverte, changement du nombre de tranches, passage d'une offre illimitée
+ * à une capacité : le restant tient compte de tout ce qui a déjà été prélevé.
+ * Création admin : l'offre et ses tranches sont validées ou annulées ensemble.
+ */
+@IntegrationTest
+class InventoryStripeTests {
+
+    @Autowired InventoryService inventory;
+    @Autowired OfferStockRepository stocks;
+    @Autowired OfferRepository offers;
+    @Autowired TicketRepository tickets;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired OfferService offerService;
+    @Autowired TestData data;
+    @Value("${app.inventory.stripes:8}") int stripes;
+
+    @Test
+    void offerWithoutStripesIsNotReportedAsSoldOut() {
+        Offer offer = offers.save(unsaved(50));
+
+        assertThatThrownBy(() -> inventory.reserve(Map.of(offer.getId(), 2), Map.of(offer.getId(), 1000)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining(String.valueOf(offer.getId()));
+    }
+
+    @Test
+    void stripeCountChangeKeepsRemainingAndCounters() {
+        Offer offer = data.offer(100);
+        Reservation held = inventory.reserve(Map.of(offer.getId(), 10), Map.of(offer.getId(), 1000));
+
+        InventoryService three = new InventoryService(stocks, offers, tickets, 3);
+        new TransactionTemplate(txManager).executeWithoutResult(s -> three.open(offer));
+        assertThat(stocks.stripesOf(offer.getId())).containsExactly(0, 1, 2);
+        assertThat(inventory.remaining(offer.getId())).isEqualTo(90L);
+        assertThat(stocks.totalSold(offer.getId())).isEqualTo(10L);
+
+        // parts prélevées sur une tranche disparue : rendues quand même
+        inventory.release(held);
+        assertThat(inventory.remaining(offer.getId())).isEqualTo(100L);
+        assertThat(stocks.totalSold(offer.getId())).isZero();
+
+        inventory.open(offer);
+        assertThat(stocks.stripesOf(offer.getId())).hasSize(stripes);
+        assertThat(inventory.remaining(offer.getId())).isEqualTo(100L);
+        assertThat(inventory.reserve(Map.of(offer.getId(), 100), Map.of(offer.getId(), 1000)).parts()
+                .stream().mapToInt(Reservation.Part::qty).sum()).isEqualTo(100);
+    }
+
+    @Test
+    void capacityOnUnlimitedOfferCountsHeldPlaces() {
+        Offer offer = data.offer(null);
+        // retenu (panier ou émission en cours) : aucun billet en base
+        inventory.reserve(Map.of(offer.getId(), 5), Map.of(offer.getId(), 1000));
+        assertThat(tickets.countByOfferId(offer.getId())).isZero();
+
+        inventory.resize(offer.getId(), null, 20);
+
+        assertThat(inventory.remaining(offer.getId())).isEqualTo(15L);
+    }
+
+    @Test
+    void offerAndStripesCommitOrRollBackTogether() {
+        Offer created = offerService.create(unsaved(40));
+        assertThat(stocks.stripesOf(created.getId())).hasSize(stripes);
+        assertThat(inventory.remaining(created.getId())).isEqualTo(40L);
+
+        Long[] rolledBack = new Long[1];
+        new TransactionTemplate(txManager).executeWithoutResult(s -> {
+            rolledBack[0] = offerService.create(unsaved(40)).getId();
+            s.setRollbackOnly();
+        });
+        assertThat(offers.findById(rolledBack[0])).isEmpty();
+        assertThat(stocks.stripesOf(rolledBack[0])).isEmpty();
+
+        offerService.delete(created.getId());
+        assertThat(offers.findById(created.getId())).isEmpty();
+        assertThat(stocks.stripesOf(created.getId())).isEmpty();
+    }
+
+    private Offer unsaved(Integer capacity) {
+        return Offer.builder()
+                .code("STRIPE-" + UUID.randomUUID().toString().substring(0, 8))
+                .name("Demi-finale")
+                .description("")
+                .seats(1)
+                .priceCents(1000)
+                .capacity(capacity)
+                .active(true)
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ticketing.offer;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Catalogue public : 304 tant qu'il ne change pas, reconstruit (nouvel ETag) dès qu'un admin
+ * modifie une offre ; l'ETag ne dépend que du contenu.
+ */
+@IntegrationTest
+class OfferCatalogTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired OfferCatalog catalog;
+    @Autowired TestData data;
+
+    @Test
+    void notModifiedUntilAnAdminEdit() throws Exception {
+        // base partagée : offres créées par d'autres classes sans passer par l'admin
+        catalog.rebuild();
+
+        var first = mvc.perform(get("/api/offers"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-cache, public"))
+                .andReturn().getResponse();
+        String etag = first.getHeader("ETag");
+        List<String> codes = JsonPath.read(first.getContentAsString(), "$[*].code");
+        assertThat(etag).isNotBlank();
+
+        var again = mvc.perform(get("/api/offers").header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andReturn().getResponse();
+        assertThat(again.getContentAsByteArray()).isEmpty();
+
+        // création par l'admin : le catalogue est reconstruit aussitôt
+        String admin = data.bearer(data.user("ROLE_ADMIN"));
+        String code = "CAT-" + UUID.randomUUID().toString().substring(0, 8);
+        String created = mvc.perform(post("/api/admin/offers").header("Authorization", admin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"code\":\"" + code + "\",\"name\":\"Finale\",\"priceCents\":1000,\"seats\":1,\"active\":true}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        Number id = JsonPath.read(created, "$.id");
+
+        var edited = mvc.perform(get("/api/offers").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertThat(edited.getHeader("ETag")).isNotEqualTo(etag);
+        assertThat(JsonPath.<List<String>>read(edited.getContentAsString(), "$[*].code")).contains(code);
+
+        // désactivation : même contenu qu'au départ, donc même ETag
+        mvc.perform(patch("/api/admin/offers/" + id + "/active").header("Authorization", admin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"active\":false}"))
+                .andExpect(status().isOk());
+        var restored = mvc.perform(get("/api/offers"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertThat(restored.getHeader("ETag")).isEqualTo(etag);
+        assertThat(JsonPath.<List<String>>read(restored.getContentAsString(), "$[*].code")).isEqualTo(codes);
+    }
+}
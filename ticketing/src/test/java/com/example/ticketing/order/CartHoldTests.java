@@ -0,0 +1,86 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.inventory.InventoryService;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.order.dto.CheckoutResponse;
+import com.example.ticketing.order.dto.HoldResponse;
+import com.example.ticketing.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Une réservation prélève le stock ; confirmée elle émet les billets, échue elle rend
+ * les places et ne peut plus être confirmée.
+ */
+@IntegrationTest(properties = {
+        "app.holds.ttl-seconds=1",
+        "app.holds.sweep-ms=100"
+})
+class CartHoldTests {
+
+    @Autowired HoldService holdService;
+    @Autowired InventoryService inventory;
+    @Autowired CartHoldRepository holds;
+    @Autowired TestData data;
+
+    @Test
+    void confirmIssuesTicketsOnHeldSeats() {
+        User buyer = data.buyer();
+        Offer offer = data.offer(50);
+        long before = inventory.remaining(offer.getId());
+
+        HoldResponse hold = holdService.hold(buyer, new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), 3))));
+        assertThat(inventory.remaining(offer.getId())).isEqualTo(before - 3);
+
+        CheckoutResponse res = holdService.confirm(buyer, hold.holdId(), false);
+        assertThat(res.tickets()).hasSize(3);
+        assertThat(inventory.remaining(offer.getId())).isEqualTo(before - 3);
+        assertThat(holds.findByToken(hold.holdId()).orElseThrow().getOrderId()).isEqualTo(res.orderId());
+
+        assertThatThrownBy(() -> holdService.confirm(buyer, hold.holdId(), false))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThatThrownBy(() -> holdService.confirm(data.buyer(), hold.holdId(), false))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.FORBIDDEN));
+    }
+
+    @Test
+    void expiredHoldsReturnCapacity() {
+        User buyer = data.buyer();
+        Offer offer = data.offer(50);
+        long before = inventory.remaining(offer.getId());
+
+        HoldResponse first = holdService.hold(buyer, new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), 2))));
+        HoldResponse second = holdService.hold(buyer, new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), 5))));
+        HoldResponse released = holdService.hold(buyer, new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), 1))));
+        assertThat(inventory.remaining(offer.getId())).isEqualTo(before - 8);
+
+        holdService.release(buyer, released.holdId());
+        holdService.release(buyer, released.holdId()); // idempotent
+        assertThat(inventory.remaining(offer.getId())).isEqualTo(before - 7);
+
+        // TTL d'une seconde, balayage toutes les 100 ms : places rendues par la tâche planifiée
+        await().atMost(10, TimeUnit.SECONDS)
+                .until(() -> inventory.remaining(offer.getId()) == before);
+        assertThat(holds.findByToken(first.holdId()).orElseThrow().getStatus()).isEqualTo(CartHold.Status.EXPIRED);
+        assertThat(holds.findByToken(second.holdId()).orElseThrow().getStatus()).isEqualTo(CartHold.Status.EXPIRED);
+
+        assertThatThrownBy(() -> holdService.confirm(buyer, first.holdId(), false))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GONE));
+    }
+}
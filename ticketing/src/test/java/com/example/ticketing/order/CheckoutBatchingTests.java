@@ -0,0 +1,75 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.SequenceAligner;
+import com.example.ticketing.TestData;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.user.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Un checkout de 40 billets reste sous 10 instructions SQL (≈ allers-retours JDBC).
+ * Les séquences ne sont recalées que si elles sont derrière max(id), sans consommer de bloc.
+ */
+@IntegrationTest
+class CheckoutBatchingTests {
+
+    private static final int TICKETS = 40;
+
+    @Autowired OrderService orderService;
+    @Autowired TestData data;
+    @Autowired EntityManagerFactory emf;
+    @Autowired SequenceAligner aligner;
+    @Autowired JdbcTemplate jdbc;
+
+    @Test
+    void groupCheckoutUsesBatchedInserts() {
+        User buyer = data.buyer();
+        Offer offer = data.offer(null);
+
+        Statistics stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        var res = orderService.checkout(buyer,
+                new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), TICKETS))));
+
+        assertThat(res.tickets()).hasSize(TICKETS);
+        assertThat(stats.getEntityInsertCount()).isEqualTo(TICKETS + 1);
+        assertThat(stats.getPrepareStatementCount()).isLessThan(10);
+    }
+
+    @Test
+    void sequenceIsRealignedOnlyWhenBehind() {
+        data.paidOrder(data.buyer(), data.offer(null), 2);
+
+        long next = nextTicketId();
+        aligner.afterSingletonsInstantiated();
+        assertThat(nextTicketId()).isEqualTo(next);
+
+        try {
+            jdbc.execute("alter sequence ticket_seq restart with 1");
+            aligner.afterSingletonsInstantiated();
+            Long max = jdbc.queryForObject("select max(id) from ticket", Long.class);
+            assertThat(nextTicketId()).isEqualTo(max + 50);
+        } finally {
+            // base partagée : Hibernate a encore en mémoire des ids du bloc courant, au-delà de max(id)
+            jdbc.execute("alter sequence ticket_seq restart with " + next);
+        }
+    }
+
+    private long nextTicketId() {
+        return jdbc.queryForObject(
+                "select BASE_VALUE from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_NAME = 'ticket_seq'", Long.class);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.order.dto.CheckoutResponse;
+import com.example.ticketing.ticket.TicketRepository;
+import com.example.ticketing.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Des envois concurrents du même checkout (même Idempotency-Key) ne créent qu'une commande,
+ * et un nouvel essai rejoue la même réponse. Une réservation abandonnée n'est reprise qu'une fois,
+ * et son ancien détenteur ne peut plus y enregistrer de commande.
+ */
+@IntegrationTest
+class CheckoutIdempotencyTests {
+
+    private static final int RETRIES = 8;
+
+    @Autowired OrderService orderService;
+    @Autowired TicketRepository tickets;
+    @Autowired OrderRepository orders;
+    @Autowired CheckoutKeyRepository keys;
+    @Autowired TestData data;
+
+    @Test
+    void concurrentRetriesCreateOneOrder() throws Exception {
+        User buyer = data.buyer();
+        Offer offer = data.offer(null);
+        CheckoutRequest req = new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), 4)));
+        String key = UUID.randomUUID().toString();
+
+        ExecutorService pool = Executors.newFixedThreadPool(RETRIES);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<CheckoutResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < RETRIES; i++) {
+            futures.add(pool.submit(() -> {
+                go.await();
+                return orderService.checkout(buyer, req, false, key);
+            }));
+        }
+        go.countDown();
+        List<CheckoutResponse> responses = new ArrayList<>();
+        for (Future<CheckoutResponse> f : futures) responses.add(f.get(60, TimeUnit.SECONDS));
+        pool.shutdown();
+
+        assertThat(responses).extracting(CheckoutResponse::orderId).containsOnly(responses.get(0).orderId());
+        assertThat(tickets.countByOfferId(offer.getId())).isEqualTo(4);
+        assertThat(orders.findSummariesByUserId(buyer.getId(), Long.MAX_VALUE, PageRequest.of(0, 10)))
+                .hasSize(1);
+
+        // rejeu après coup : même commande, mêmes billets
+        CheckoutResponse replay = orderService.replay(buyer, req, false, key).orElseThrow();
+        assertThat(replay).isEqualTo(responses.get(0));
+
+        // même clé, autre panier : refusé
+        CheckoutRequest other = new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), 5)));
+        assertThatThrownBy(() -> orderService.checkout(buyer, other, false, key))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY));
+    }
+
+    @Test
+    void abandonedClaimIsTakenOverOnce() {
+        User buyer = data.buyer();
+        CheckoutRequest req = new CheckoutRequest(List.of(new CheckoutItem(data.offer(null).getId(), 1)));
+        Instant old = Instant.now().minus(Duration.ofMinutes(10)).truncatedTo(ChronoUnit.MICROS);
+
+        // réservation récente d'une autre requête : 409, pas de reprise
+        String busy = UUID.randomUUID().toString();
+        pending(buyer, busy, req, Instant.now());
+        assertThatThrownBy(() -> orderService.checkout(buyer, req, false, busy))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+
+        // réservation abandonnée : reprise, et l'ancien détenteur ne peut plus la terminer
+        String key = UUID.randomUUID().toString();
+        CheckoutKey stale = pending(buyer, key, req, old);
+        CheckoutResponse res = orderService.checkout(buyer, req, false, key);
+        assertThat(keys.complete(stale.getId(), stale.getOwner(), -1L, "{}")).isZero();
+        assertThat(keys.findById(stale.getId()).orElseThrow().getOrderId()).isEqualTo(res.orderId());
+
+        // deux reprises concurrentes de la même réservation : une seule gagne
+        CheckoutKey other = pending(buyer, UUID.randomUUID().toString(), req, old);
+        assertThat(keys.takeOver(other.getId(), old, "a", Instant.now())).isEqualTo(1);
+        assertThat(keys.takeOver(other.getId(), old, "b", Instant.now())).isZero();
+    }
+
+    private CheckoutKey pending(User buyer, String key, CheckoutRequest req, Instant claimedAt) {
+        return keys.save(CheckoutKey.builder()
+                .userId(buyer.getId())
+                .idemKey(key)
+                .requestHash(CheckoutIdempotency.fingerprint(req))
+                .owner(UUID.randomUUID().toString())
+                .createdAt(claimedAt)
+                .build());
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.inventory.InventoryService;
+import com.example.ticketing.offer.Offer;
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.order.dto.IssuanceStatusResponse;
+import com.example.ticketing.ticket.TicketRepository;
+import com.example.ticketing.user.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Le checkout asynchrone rend la main avant l'émission ; les workers en mémoire émettent
+ * ensuite tous les billets, sans courtier externe.
+ */
+@IntegrationTest(properties = {
+        "app.issuance.workers=2",
+        "app.issuance.queue-capacity=4",
+        "app.issuance.poll-ms=200"
+})
+class IssuancePipelineTests {
+
+    private static final int ORDERS = 20;
+    private static final int PER_ORDER = 25;
+
+    @Autowired IssuancePipeline issuance;
+    @Autowired OrderService orderService;
+    @Autowired InventoryService inventory;
+    @Autowired TicketRepository tickets;
+    @Autowired IssuanceJobRepository jobs;
+    @Autowired OrderRepository orders;
+    @Autowired ObjectMapper json;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired TestData data;
+
+    @Test
+    void acceptedOrdersAreIssuedInBackground() throws Exception {
+        User buyer = data.buyer();
+        Offer offer = data.offer(ORDERS * PER_ORDER);
+        CheckoutRequest req = new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), PER_ORDER)));
+
+        // file de 4 places pour 20 commandes : le surplus passe par le balayage en base
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            IssuanceStatusResponse accepted = issuance.accept(buyer, req);
+            assertThat(accepted.status()).isEqualTo("PENDING");
+            orderIds.add(accepted.orderId());
+        }
+        assertThat(inventory.remaining(offer.getId())).isZero();
+
+        for (Long orderId : orderIds) {
+            IssuanceStatusResponse done = issuance.completion(orderId).get(30, TimeUnit.SECONDS);
+            assertThat(done.status()).isEqualTo("ISSUED");
+            assertThat(done.tickets()).isEqualTo(PER_ORDER);
+            assertThat(issuance.status(buyer, orderId)).isEqualTo(done);
+        }
+        assertThat(tickets.countByOfferId(offer.getId())).isEqualTo((long) ORDERS * PER_ORDER);
+    }
+
+    @Test
+    void staleClaimCannotIssueTwice() throws Exception {
+        User buyer = data.buyer();
+        Offer offer = data.offer(null);
+        CheckoutRequest req = new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), 3)));
+
+        // worker A a réclamé le job il y a une heure et ne l'a jamais terminé
+        Instant staleClaim = Instant.now().minus(Duration.ofHours(1)).truncatedTo(ChronoUnit.MICROS);
+        IssuanceJob job = pendingJob(buyer, req, IssuanceJob.Status.RUNNING, staleClaim, null);
+
+        issuance.process(job.getId());
+        issuance.completion(job.getOrderId()).get(30, TimeUnit.SECONDS);
+
+        // A se réveille : sa réclamation n'est plus la bonne, rien n'est réémis
+        assertThat(jobs.finish(job.getId(), staleClaim, IssuanceJob.Status.DONE, null)).isZero();
+        issuance.process(job.getId());
+        assertThat(tickets.countByOrderId(job.getOrderId())).isEqualTo(3);
+        assertThat(jobs.findById(job.getId()).orElseThrow().getStatus()).isEqualTo(IssuanceJob.Status.DONE);
+        assertThat(issuance.status(buyer, job.getOrderId()).status()).isEqualTo("ISSUED");
+    }
+
+    @Test
+    void issuedOrderIsNotReissued() throws Exception {
+        User buyer = data.buyer();
+        Offer offer = data.offer(null);
+        IssuanceJob job = pendingJob(buyer, new CheckoutRequest(List.of(new CheckoutItem(offer.getId(), 2))),
+                IssuanceJob.Status.PENDING, null, Order.Status.ISSUED);
+
+        issuance.process(job.getId());
+
+        assertThat(tickets.countByOrderId(job.getOrderId())).isZero();
+        assertThat(jobs.findById(job.getId()).orElseThrow().getStatus()).isEqualTo(IssuanceJob.Status.DONE);
+    }
+
+    @Test
+    void unknownOrderIsNotFound() {
+        assertThatThrownBy(() -> issuance.completion(Long.MAX_VALUE))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+    }
+
+    private IssuanceJob pendingJob(User buyer, CheckoutRequest req, IssuanceJob.Status status,
+                                   Instant claimedAt, Order.Status orderStatus) throws Exception {
+        String requestJson = json.writeValueAsString(req);
+        return new TransactionTemplate(txManager).execute(s -> {
+            Order order = orderService.newOrder(buyer, Order.Status.PENDING);
+            if (orderStatus != null) order.setStatus(orderStatus);
+            return jobs.save(IssuanceJob.builder()
+                    .orderId(order.getId())
+                    .status(status)
+                    .requestJson(requestJson)
+                    .reservationJson("{\"parts\":[]}")
+                    .claimedAt(claimedAt)
+                    .createdAt(Instant.now())
+                    .build());
+        });
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.user.User;
+import com.example.ticketing.util.QrService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Export ZIP en flux : toutes les pages de billets, une image QR par billet,
+ * et uniquement pour le propriétaire de la commande.
+ */
+@IntegrationTest
+class OrderExportTests {
+
+    // deux pages pleines : la boucle doit aussi s'arrêter sur la page vide qui suit
+    private static final int TICKETS = 2 * OrderController.STREAM_PAGE;
+
+    @Autowired MockMvc mvc;
+    @Autowired OrderService orderService;
+    @Autowired TestData data;
+
+    @Test
+    void zipHasOneQrPerTicketAcrossPages() throws Exception {
+        User buyer = data.buyer();
+        var res = data.paidOrder(buyer, data.offer(null), TICKETS);
+
+        MvcResult started = mvc.perform(get("/api/order/" + res.orderId() + "/tickets.zip")
+                        .header("Authorization", data.bearer(buyer)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        byte[] zip = mvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"commande-" + res.orderId() + ".zip\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        List<String> names = new ArrayList<>();
+        try (ZipInputStream in = new ZipInputStream(new ByteArrayInputStream(zip))) {
+            ZipEntry e;
+            while ((e = in.getNextEntry()) != null) {
+                names.add(e.getName());
+                if (names.size() == 1) {
+                    BufferedImage png = ImageIO.read(new ByteArrayInputStream(in.readAllBytes()));
+                    assertThat(png.getWidth()).isEqualTo(QrService.PNG_SIZE);
+                }
+            }
+        }
+        List<String> expected = orderService.ticketPage(res.orderId(), 0L, TICKETS + 1).stream()
+                .map(t -> "ticket-" + t.ticketId() + ".png")
+                .toList();
+        assertThat(expected).hasSize(TICKETS);
+        assertThat(names).containsExactlyElementsOf(expected);
+    }
+
+    @Test
+    void zipIsOnlyForTheOwner() throws Exception {
+        User buyer = data.buyer();
+        var res = data.paidOrder(buyer, data.offer(null), 2);
+
+        mvc.perform(get("/api/order/" + res.orderId() + "/tickets.zip")
+                        .header("Authorization", data.bearer(data.buyer())))
+                .andExpect(status().isForbidden());
+        mvc.perform(get("/api/order/" + (res.orderId() + 10_000) + "/tickets.zip")
+                        .header("Authorization", data.bearer(buyer)))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.ticketing.order;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.order.dto.CheckoutItem;
+import com.example.ticketing.order.dto.CheckoutRequest;
+import com.example.ticketing.user.User;
+import com.jayway.jsonpath.JsonPath;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Nombre d'instructions SQL par endpoint de lecture : constant, quel que soit le nombre
+ * de billets ou d'offres différentes dans la commande (pas de N+1 sur Offer/Order/User),
+ * et par page pour les listes paginées par curseur.
+ */
+@IntegrationTest
+class OrderReadQueryCountTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired OrderService orderService;
+    @Autowired TestData data;
+    @Autowired EntityManagerFactory emf;
+
+    private Statistics stats;
+    private String bearer;
+    private Long orderId;
+    private Long ticketId;
+
+    @BeforeEach
+    void order() throws Exception {
+        User buyer = data.buyer();
+        var res = orderService.checkout(buyer, new CheckoutRequest(List.of(
+                new CheckoutItem(data.offer(null).getId(), 10),
+                new CheckoutItem(data.offer(null).getId(), 10),
+                new CheckoutItem(data.offer(null).getId(), 10))), false);
+        orderId = res.orderId();
+        ticketId = res.tickets().get(0).ticketId();
+        bearer = data.bearer(buyer);
+
+        // 1re requête : charge l'utilisateur dans le cache des principaux
+        mvc.perform(get("/api/order/orders").header("Authorization", bearer)).andExpect(status().isOk());
+        stats = emf.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+    }
+
+    @Test
+    void ticketsOfOrder() throws Exception {
+        mvc.perform(get("/api/order/" + orderId + "/tickets").header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(30))
+                .andExpect(jsonPath("$[0].offerName").exists())
+                .andExpect(jsonPath("$[0].token").exists());
+        // propriétaire + billets joints à leur offre
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+    }
+
+    @Test
+    void ticketsOfOrderByCursor() throws Exception {
+        Set<Integer> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            var req = get("/api/order/" + orderId + "/tickets").header("Authorization", bearer).param("limit", "12");
+            if (cursor != null) req.param("cursor", cursor);
+            stats.clear();
+            var res = mvc.perform(req).andExpect(status().isOk()).andReturn().getResponse();
+            List<Integer> ids = JsonPath.read(res.getContentAsString(), "$[*].id");
+            seen.addAll(ids);
+            cursor = res.getHeader("X-Next-Cursor");
+            pages++;
+            // coût constant par page, quelle que soit sa position
+            assertThat(stats.getPrepareStatementCount()).isEqualTo(2);
+        } while (cursor != null);
+        assertThat(pages).isEqualTo(3);
+        assertThat(seen).hasSize(30);
+    }
+
+    @Test
+    void ordersOfUser() throws Exception {
+        mvc.perform(get("/api/order/orders").header("Authorization", bearer))
+                .andExpect(status().isOk());
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void qrPng() throws Exception {
+        mvc.perform(get("/api/tickets/" + ticketId + "/qr.png").header("Authorization", bearer).param("payload", "token"))
+                .andExpect(status().isOk());
+        // billet joint à sa commande pour le contrôle du propriétaire
+        assertThat(stats.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
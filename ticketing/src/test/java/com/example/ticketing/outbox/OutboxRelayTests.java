@@ -0,0 +1,88 @@
+package com.example.ticketing.outbox;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.order.dto.CheckoutResponse;
+import com.example.ticketing.order.dto.IssuedTicket;
+import com.example.ticketing.ticket.TicketService;
+import com.example.ticketing.user.User;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Les évènements de commande et de consommation sont écrits avec la transaction qui les
+ * produit, puis relayés une seule fois aux écouteurs et au puits.
+ */
+@IntegrationTest(properties = "app.outbox.sink=recording")
+class OutboxRelayTests {
+
+    @TestConfiguration
+    static class Recording {
+        final List<OutboxMessage> sunk = new CopyOnWriteArrayList<>();
+        final List<OutboxMessage> heard = new CopyOnWriteArrayList<>();
+
+        @Bean
+        OutboxSink recordingSink() {
+            return sunk::addAll;
+        }
+
+        @EventListener
+        void on(OutboxMessage m) {
+            heard.add(m);
+        }
+    }
+
+    @Autowired TicketService ticketService;
+    @Autowired OutboxRelay relay;
+    @Autowired OutboxEventRepository events;
+    @Autowired Recording recording;
+    @Autowired ObjectMapper json;
+    @Autowired TestData data;
+
+    @Test
+    void checkoutAndConsumptionAreRelayedOnce() throws Exception {
+        relay.relay();
+        recording.sunk.clear();
+        recording.heard.clear();
+
+        User buyer = data.buyer();
+        CheckoutResponse res = data.paidOrder(buyer, data.offer(null), 3);
+        List<IssuedTicket> issued = data.tickets(res);
+
+        ticketService.consumeByKey(issued.get(0).finalKey());
+        assertThatThrownBy(() -> ticketService.consumeByKey(issued.get(0).finalKey()))
+                .isInstanceOf(ResponseStatusException.class);
+        ticketService.consumeBatch(List.of(issued.get(0).finalKey(), issued.get(1).finalKey(), issued.get(2).finalKey()));
+
+        // rien ne part avant le relais ; le refus (transaction annulée) n'a rien écrit
+        assertThat(recording.heard).isEmpty();
+        assertThat(events.countByPublishedAtIsNull()).isEqualTo(4);
+
+        assertThat(relay.relay()).isEqualTo(4);
+        assertThat(relay.relay()).isZero();
+        assertThat(events.countByPublishedAtIsNull()).isZero();
+
+        assertThat(recording.sunk).isEqualTo(recording.heard);
+        assertThat(recording.heard).extracting(OutboxMessage::type).containsExactly(
+                Outbox.ORDER_ISSUED, Outbox.TICKET_CONSUMED, Outbox.TICKET_CONSUMED, Outbox.TICKET_CONSUMED);
+
+        Outbox.OrderIssued order = json.readValue(recording.heard.get(0).payload(), Outbox.OrderIssued.class);
+        assertThat(order.orderId()).isEqualTo(res.orderId());
+        assertThat(order.userId()).isEqualTo(buyer.getId());
+        assertThat(order.tickets()).extracting(Outbox.IssuedLine::ticketId)
+                .containsExactlyElementsOf(issued.stream().map(IssuedTicket::ticketId).toList());
+        assertThat(recording.heard.subList(1, 4)).extracting(OutboxMessage::aggregateId)
+                .containsExactlyElementsOf(issued.stream().map(IssuedTicket::ticketId).toList());
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.ticketing.queue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Admission dans l'ordre d'arrivée au débit configuré, jeton consommé seulement par un checkout
+ * réussi, une seule place par acheteur, expiration des admissions non utilisées et plafond
+ * de checkouts concurrents. Les tâches planifiées sont appelées à la main et l'horloge avancée
+ * par le test (pas de contexte Spring).
+ */
+class AdmissionQueueTests {
+
+    private final MutableClock clock = new MutableClock();
+
+    // 10/s avec un tick de 200 ms : 2 admissions par tick
+    private AdmissionQueue queue(long ttlSeconds, int maxConcurrent) {
+        return new AdmissionQueue(true, 10, ttlSeconds, maxConcurrent, clock);
+    }
+
+    @Test
+    void admitsInArrivalOrder() {
+        AdmissionQueue q = queue(300, 20);
+        List<QueueStatus> joined = new ArrayList<>();
+        for (long user = 1; user <= 5; user++) joined.add(q.join(user));
+        assertThat(joined).extracting(QueueStatus::position).containsExactly(1L, 2L, 3L, 4L, 5L);
+        assertRefused(() -> q.enter(joined.get(0).token(), 1L), HttpStatus.TOO_MANY_REQUESTS);
+
+        q.tick();
+        assertThat(q.status(joined.get(0).token()).admitted()).isTrue();
+        assertThat(q.status(joined.get(1).token()).admitted()).isTrue();
+        assertThat(q.status(joined.get(2).token()).position()).isEqualTo(1);
+        assertRefused(() -> q.enter(joined.get(2).token(), 3L), HttpStatus.TOO_MANY_REQUESTS);
+
+        q.tick();
+        q.tick();
+        assertThat(q.status(joined.get(4).token()).admitted()).isTrue();
+        // la barre ne dépasse pas le dernier arrivé
+        QueueStatus late = q.join(6L);
+        assertThat(late.admitted()).isFalse();
+    }
+
+    @Test
+    void tokenIsConsumedOnlyBySuccessfulCheckout() {
+        AdmissionQueue q = queue(300, 20);
+        String token = q.join(1L).token();
+        q.tick();
+
+        assertRefused(() -> q.enter(token, 2L), HttpStatus.FORBIDDEN);
+
+        // checkout en échec (409, erreur, délai) : la place est conservée
+        try (var pass = q.enter(token, 1L)) {
+            // un second checkout avec le même jeton attend la fin du premier
+            assertRefused(() -> q.enter(token, 1L), HttpStatus.TOO_MANY_REQUESTS);
+        }
+        try (var pass = q.enter(token, 1L)) {
+            pass.consume();
+        }
+        assertRefused(() -> q.enter(token, 1L), HttpStatus.FORBIDDEN);
+    }
+
+    @Test
+    void joiningAgainKeepsTheSamePlace() {
+        AdmissionQueue q = queue(300, 20);
+        QueueStatus first = q.join(1L);
+        assertThat(q.join(1L)).isEqualTo(first);
+        assertThat(q.join(2L).position()).isEqualTo(2);
+
+        q.tick();
+        try (var pass = q.enter(first.token(), 1L)) {
+            pass.consume();
+        }
+        // place consommée par un checkout : nouvelle place en fin de file
+        QueueStatus again = q.join(1L);
+        assertThat(again.token()).isNotEqualTo(first.token());
+        assertThat(again.admitted()).isFalse();
+    }
+
+    @Test
+    void unusedAdmissionsExpire() {
+        AdmissionQueue q = queue(1, 20);
+        String token = q.join(1L).token();
+        q.tick();
+
+        q.expireAdmissions(); // début du délai d'admission
+        clock.advance(1000);
+        q.expireAdmissions();
+        assertThat(q.status(token).admitted()).isTrue();
+
+        clock.advance(1);
+        q.expireAdmissions();
+        assertRefused(() -> q.enter(token, 1L), HttpStatus.FORBIDDEN);
+        assertRefused(() -> q.status(token), HttpStatus.NOT_FOUND);
+        // place perdue : rejoindre en donne une nouvelle
+        assertThat(q.join(1L).token()).isNotEqualTo(token);
+    }
+
+    @Test
+    void capsConcurrentCheckouts() {
+        AdmissionQueue q = queue(300, 2);
+        List<String> tokens = new ArrayList<>();
+        for (long user = 1; user <= 3; user++) tokens.add(q.join(user).token());
+        q.tick();
+        q.tick();
+
+        AdmissionQueue.Pass first = q.enter(tokens.get(0), 1L);
+        AdmissionQueue.Pass second = q.enter(tokens.get(1), 2L);
+        assertRefused(() -> q.enter(tokens.get(2), 3L), HttpStatus.TOO_MANY_REQUESTS);
+
+        first.consume();
+        first.close();
+        try (var third = q.enter(tokens.get(2), 3L)) {
+            third.consume();
+        }
+        second.close();
+    }
+
+    @Test
+    void disabledQueueLetsEveryoneThrough() {
+        AdmissionQueue q = new AdmissionQueue(false, 10, 300, 1);
+        try (var a = q.enter(null, 1L); var b = q.enter(null, 2L)) {
+            assertThat(q.join(1L).admitted()).isTrue();
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+        private long millis = 1_000_000;
+
+        void advance(long ms) {
+            millis += ms;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+
+    private static void assertRefused(Runnable call, HttpStatus status) {
+        assertThatThrownBy(call::run)
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(status));
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.ticketing.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Pool plein : 429 immédiat ; les requêtes déjà en file attendent leur calcul, sans délai imposé.
+ */
+class PasswordHasherTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    // encodeur bloqué jusqu'à "release" : simule un BCrypt très lent
+    private final PasswordEncoder slow = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence raw) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "h:" + raw;
+        }
+
+        @Override
+        public boolean matches(CharSequence raw, String hash) {
+            return encode(raw).equals(hash);
+        }
+    };
+
+    @Test
+    void fullQueueIsRejectedImmediately() throws Exception {
+        PasswordHasher hasher = new PasswordHasher(slow, 1, 1, registry);
+        try {
+            CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> hasher.encode("a"));
+            assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+            CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> hasher.encode("b"));
+            await().atMost(10, TimeUnit.SECONDS)
+                    .until(() -> registry.get("auth.password.queue").gauge().value() >= 1);
+            assertThat(queued).isNotDone();
+
+            assertThatThrownBy(() -> hasher.matches("c", "h:c"))
+                    .isInstanceOfSatisfying(ResponseStatusException.class,
+                            e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS));
+            assertThat(registry.get("auth.password.rejected").counter().count()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(running.get(10, TimeUnit.SECONDS)).isEqualTo("h:a");
+            assertThat(queued.get(10, TimeUnit.SECONDS)).isEqualTo("h:b");
+            assertThat(hasher.matches("d", "h:d")).isTrue();
+        } finally {
+            release.countDown();
+            hasher.shutdown();
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.example.ticketing.security;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.user.User;
+import com.example.ticketing.user.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Le principal vient du cache entre deux requêtes ; un changement de rôle (révocation des
+ * sessions) ou d'utilisateur le fait relire, et les anciens tokens ne passent plus.
+ */
+@IntegrationTest
+class PrincipalCacheTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired UserRepository users;
+    @Autowired TestData data;
+    @Autowired PrincipalCache principals;
+    @Autowired MeterRegistry registry;
+    @Value("${app.jwt.secret}") String secret;
+
+    @Test
+    void secondRequestIsServedFromCache() throws Exception {
+        String bearer = data.bearer(data.buyer());
+        mvc.perform(get("/api/me").header("Authorization", bearer)).andExpect(status().isOk());
+
+        double hits = gets("hit"), misses = gets("miss");
+        mvc.perform(get("/api/me").header("Authorization", bearer)).andExpect(status().isOk());
+        assertThat(gets("hit")).isEqualTo(hits + 1);
+        assertThat(gets("miss")).isEqualTo(misses);
+    }
+
+    @Test
+    void roleChangeWithRevokedSessionsRejectsOldToken() throws Exception {
+        User demoted = data.user("ROLE_ADMIN");
+        // iat est à la seconde : token émis par une horloge en retard, antérieur à la révocation
+        JwtService earlier = new JwtService(secret, 60, Clock.offset(Clock.systemUTC(), Duration.ofSeconds(-5)));
+        earlier.init();
+        String oldToken = "Bearer " + earlier.generate(demoted);
+        mvc.perform(get("/api/admin/sales").header("Authorization", oldToken)).andExpect(status().isOk());
+
+        demoted.setRoles(new ArrayList<>(List.of("ROLE_USER")));
+        users.save(demoted);
+        String admin = data.bearer(data.user("ROLE_ADMIN"));
+        mvc.perform(post("/api/admin/users/" + demoted.getId() + "/revoke-sessions").header("Authorization", admin))
+                .andExpect(status().isOk());
+
+        double misses = gets("miss");
+        mvc.perform(get("/api/admin/sales").header("Authorization", oldToken)).andExpect(status().is4xxClientError());
+        mvc.perform(get("/api/me").header("Authorization", oldToken)).andExpect(status().is4xxClientError());
+
+        String newToken = data.bearer(users.findById(demoted.getId()).orElseThrow());
+        mvc.perform(get("/api/me").header("Authorization", newToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.roles[0]").value("ROLE_USER"));
+        mvc.perform(get("/api/admin/sales").header("Authorization", newToken)).andExpect(status().isForbidden());
+        // entrée évincée : relue une fois en base
+        assertThat(gets("miss")).isEqualTo(misses + 1);
+    }
+
+    @Test
+    void changedUserIsReloadedAfterEviction() throws Exception {
+        User u = data.buyer();
+        String bearer = data.bearer(u);
+        mvc.perform(get("/api/me").header("Authorization", bearer)).andExpect(status().isOk());
+
+        u.setEmail(UUID.randomUUID() + "@test.fr");
+        users.save(u);
+        // encore servi depuis le cache tant que l'entrée n'est pas invalidée
+        mvc.perform(get("/api/me").header("Authorization", bearer)).andExpect(status().isOk());
+
+        principals.evict(u.getId());
+        mvc.perform(get("/api/me").header("Authorization", bearer)).andExpect(status().is4xxClientError());
+
+        users.deleteById(u.getId());
+        principals.evict(u.getId());
+        assertThat(principals.get(u.getId())).isNull();
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", "auth.principal").tag("result", result)
+                .functionCounter().count();
+    }
+}
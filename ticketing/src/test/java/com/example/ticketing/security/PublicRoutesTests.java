@@ -0,0 +1,56 @@
+package com.example.ticketing.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * La table compilée doit décider comme AntPathMatcher sur un mélange de requêtes proche
+ * du trafic réel (scans, QR, checkout, offres).
+ */
+class PublicRoutesTests {
+
+    private static final AntPathMatcher ANT = new AntPathMatcher();
+
+    // méthode, chemin — proportions d'un journal de jour de vente
+    private static final List<String[]> MIX = List.of(
+            req("GET", "/api/tickets/verify"), req("GET", "/api/tickets/verify"), req("GET", "/api/tickets/verify"),
+            req("GET", "/api/tickets/verify-token"), req("POST", "/api/tickets/consume"),
+            req("POST", "/api/tickets/consume/batch"),
+            req("GET", "/api/tickets/123456/qr.png"), req("GET", "/api/tickets/123456/qr.png"),
+            req("GET", "/api/tickets/98/qr.svg"), req("GET", "/api/tickets//qr.png"),
+            req("GET", "/api/offers"), req("GET", "/api/offers"), req("POST", "/api/offers"),
+            req("GET", "/api/offers/"), req("POST", "/api/order/checkout"), req("POST", "/api/order/checkout"),
+            req("GET", "/api/order/orders"), req("GET", "/api/order/42/tickets"),
+            req("POST", "/api/order/queue"), req("GET", "/api/order/queue/abc"),
+            req("POST", "/auth/login"), req("POST", "/auth/otp/verify"), req("POST", "/auth/logout"),
+            req("GET", "/auth"), req("GET", "/authx"), req("GET", "/h2-console/login.do"),
+            req("GET", "/actuator/health"), req("GET", "/actuator/health/liveness"), req("POST", "/actuator/health"),
+            req("GET", "/actuator/metrics"), req("GET", "/actuator/metrics/cache.gets"),
+            req("GET", "/api/admin/sales"), req("PUT", "/api/admin/offers/3"),
+            req("GET", "/api/me"), req("GET", "/")
+    );
+
+    @Test
+    void sameDecisionsAsAntPathMatcher() {
+        for (String[] r : MIX) {
+            assertThat(PublicRoutes.matches(r[0], r[1])).as("%s %s", r[0], r[1]).isEqualTo(ant(r[0], r[1]));
+        }
+    }
+
+    private static boolean ant(String method, String uri) {
+        for (PublicRoutes.Route r : PublicRoutes.ALL) {
+            if ((r.method() == null || r.method().name().equals(method)) && ANT.match(r.pattern(), uri)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String[] req(String method, String uri) {
+        return new String[]{method, uri};
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.ticketing.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Rafale autorisée jusqu'à la capacité puis 429 avec Retry-After ; l'entrée dans la file est limitée aussi.
+ */
+class RateLimitFilterTests {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final RateLimitFilter filter = new RateLimitFilter(true, 3, 0.01, 10, 0.5, 5, 1, 2, 0.01, 100, 50, registry);
+
+    @Test
+    void rejectsBeyondBurstPerIp() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            assertThat(login("10.0.0.1").getStatus()).isEqualTo(200);
+        }
+        MockHttpServletResponse limited = login("10.0.0.1");
+        assertThat(limited.getStatus()).isEqualTo(429);
+        assertThat(limited.getHeader("Retry-After")).isNotNull();
+
+        // autre IP : seau indépendant
+        assertThat(login("10.0.0.2").getStatus()).isEqualTo(200);
+        assertThat(registry.get("ratelimit.requests").tag("route", "login").tag("outcome", "rejected")
+                .counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void limitsQueueJoins() throws Exception {
+        assertThat(post("/api/order/queue", "10.0.0.3").getStatus()).isEqualTo(200);
+        assertThat(post("/api/order/queue", "10.0.0.3").getStatus()).isEqualTo(200);
+        assertThat(post("/api/order/queue", "10.0.0.3").getStatus()).isEqualTo(429);
+    }
+
+    private MockHttpServletResponse login(String ip) throws Exception {
+        return post("/auth/login", ip);
+    }
+
+    private MockHttpServletResponse post(String uri, String ip) throws Exception {
+        MockHttpServletRequest req = new MockHttpServletRequest("POST", uri);
+        req.setRemoteAddr(ip);
+        MockHttpServletResponse res = new MockHttpServletResponse();
+        filter.doFilter(req, res, new MockFilterChain());
+        return res;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.ticketing.security;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Filtre de Bloom sans faux négatif ; une révocation est visible aussitôt sur l'instance
+ * qui l'a faite, avant comme après la synchronisation périodique.
+ */
+@IntegrationTest
+class RevocationListTests {
+
+    @Autowired RevocationList revocations;
+    @Autowired RevokedTokenRepository repo;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired TestData data;
+
+    @Test
+    void bloomFilterHasNoFalseNegatives() {
+        BloomFilter bloom = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) bloom.add("jti-" + i);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 1000; i++) {
+            assertThat(bloom.mightContain("jti-" + i)).isTrue();
+            if (bloom.mightContain("autre-" + i)) falsePositives++;
+        }
+        assertThat(falsePositives).isLessThan(50);
+    }
+
+    @Test
+    void revokedTokenIsRejectedBeforeAndAfterSync() {
+        String jti = UUID.randomUUID().toString();
+        String other = UUID.randomUUID().toString();
+        revocations.revokeToken(jti, Instant.now().plus(1, ChronoUnit.HOURS));
+
+        assertThat(revocations.isRevoked(jti, 1L, 0)).isTrue();
+        assertThat(revocations.isRevoked(other, 1L, 0)).isFalse();
+
+        revocations.sync();
+        assertThat(revocations.isRevoked(jti, 1L, 0)).isTrue();
+        assertThat(revocations.isRevoked(other, 1L, 0)).isFalse();
+    }
+
+    @Test
+    void userRevocationSparesTokensIssuedInTheSameSecond() {
+        long uid = data.buyer().getId();
+        revocations.revokeUser(uid);
+        long revokedAt = repo.findByExpiresAtAfter(Instant.now()).stream()
+                .filter(r -> r.getUserId() != null && r.getUserId() == uid)
+                .findFirst().orElseThrow()
+                .getRevokedAt().getEpochSecond();
+
+        for (int pass = 0; pass < 2; pass++) {
+            assertThat(revocations.isRevoked(null, uid, revokedAt - 1)).isTrue();
+            // reconnexion dans la même seconde : nouveau token accepté
+            assertThat(revocations.isRevoked(null, uid, revokedAt)).isFalse();
+            assertThat(revocations.isRevoked(null, uid + 1, revokedAt - 1)).isFalse();
+            revocations.sync();
+        }
+    }
+
+    @Test
+    void uncommittedRevocationSurvivesConcurrentSync() {
+        String jti = UUID.randomUUID().toString();
+        new TransactionTemplate(txManager).executeWithoutResult(s -> {
+            revocations.revokeToken(jti, Instant.now().plus(1, ChronoUnit.HOURS));
+            // la synchronisation d'un autre thread ne voit pas encore la ligne
+            CompletableFuture.runAsync(revocations::sync).join();
+            assertThat(revocations.isRevoked(jti, 1L, 0)).isTrue();
+        });
+        revocations.sync();
+        assertThat(revocations.isRevoked(jti, 1L, 0)).isTrue();
+    }
+}
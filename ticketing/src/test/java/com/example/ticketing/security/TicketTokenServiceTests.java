@@ -0,0 +1,59 @@
+package com.example.ticketing.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Jetons de billet : valides avec la bonne clé, rejetés s'ils sont modifiés,
+ * tronqués ou signés par une autre clé.
+ */
+class TicketTokenServiceTests {
+
+    private final TicketTokenService tokens = new TicketTokenService("secret-de-test-suffisamment-long-0123456789");
+
+    @Test
+    void issuedTokenVerifies() {
+        String token = tokens.issue(123L, 7L);
+
+        assertThat(token).startsWith("T1.");
+        assertThat(tokens.verify(token)).contains(new TicketTokenService.TicketClaims(123L, 7L));
+        assertThat(tokens.issue(123L, 7L)).isEqualTo(token);
+    }
+
+    @Test
+    void tamperedPayloadOrMacIsRejected() {
+        String token = tokens.issue(123L, 7L);
+        int dot = token.indexOf('.', 3);
+
+        // autre billet, signature d'origine
+        String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(ByteBuffer.allocate(16).putLong(124L).putLong(7L).array());
+        assertThat(tokens.verify("T1." + payload + token.substring(dot))).isEmpty();
+
+        // premier caractère de la signature modifié (6 bits pleins, pas de bits de remplissage)
+        char first = token.charAt(dot + 1);
+        assertThat(tokens.verify(token.substring(0, dot + 1) + (first == 'A' ? 'B' : 'A') + token.substring(dot + 2))).isEmpty();
+
+        // autre clé
+        assertThat(new TicketTokenService("une-autre-cle-0123456789-abcdefghij").verify(token)).isEmpty();
+    }
+
+    @Test
+    void truncatedOrMalformedTokenIsRejected() {
+        String token = tokens.issue(123L, 7L);
+        int dot = token.indexOf('.', 3);
+
+        assertThat(tokens.verify(token.substring(0, token.length() - 4))).isEmpty();
+        assertThat(tokens.verify(token.substring(0, dot))).isEmpty();
+        assertThat(tokens.verify(token.substring(0, dot + 1))).isEmpty();
+        assertThat(tokens.verify("T1." + token.substring(4))).isEmpty();
+        assertThat(tokens.verify(token.substring(3))).isEmpty();
+        assertThat(tokens.verify("T1.%%%.***")).isEmpty();
+        assertThat(tokens.verify("")).isEmpty();
+        assertThat(tokens.verify(null)).isEmpty();
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.ticketing.ticket;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.order.dto.IssuedTicket;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.sql.DataSource;
+import java.sql.Statement;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Lot de scans : un résultat par clé distincte, dans l'ordre reçu, y compris quand le pilote
+ * JDBC répond SUCCESS_NO_INFO au lieu du nombre de lignes modifiées.
+ */
+@IntegrationTest
+class TicketBatchConsumeTests {
+
+    @Autowired TicketService ticketService;
+    @Autowired DataSource dataSource;
+    @Autowired TestData data;
+
+    @Test
+    void oneOutcomePerDistinctKeyInOrder() {
+        assertMixedBatch();
+    }
+
+    @Test
+    void successNoInfoIsResolvedFromConsumedAt() {
+        // pilote qui ne rapporte pas les comptes (ex. certains modes batch) : toujours -2
+        JdbcTemplate noInfo = new JdbcTemplate(dataSource) {
+            @Override
+            public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+                int[] counts = super.batchUpdate(sql, batchArgs);
+                Arrays.fill(counts, Statement.SUCCESS_NO_INFO);
+                return counts;
+            }
+        };
+        TicketService target = AopTestUtils.getTargetObject(ticketService);
+        JdbcTemplate jdbc = (JdbcTemplate) ReflectionTestUtils.getField(target, "jdbc");
+        ReflectionTestUtils.setField(target, "jdbc", noInfo);
+        try {
+            assertMixedBatch();
+        } finally {
+            ReflectionTestUtils.setField(target, "jdbc", jdbc);
+        }
+    }
+
+    @Test
+    void oversizedOrEmptyBatch() {
+        List<String> tooMany = IntStream.range(0, 1001).mapToObj(i -> "k" + i).toList();
+        assertThatThrownBy(() -> ticketService.consumeBatch(tooMany))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+
+        List<String> blanks = new ArrayList<>(Collections.nCopies(3, " "));
+        blanks.add(null);
+        assertThat(ticketService.consumeBatch(blanks)).isEqualTo(new ConsumeBatchResponse(0, 0, 0, List.of()));
+        assertThat(ticketService.consumeBatch(null).results()).isEmpty();
+    }
+
+    private void assertMixedBatch() {
+        List<IssuedTicket> issued = data.tickets(data.paidOrder(data.buyer(), data.offer(null), 3));
+        String already = issued.get(0).finalKey();
+        var earlier = ticketService.consumeByKey(already);
+        String fresh = issued.get(1).finalKey();
+        String other = issued.get(2).finalKey();
+        String unknown = "inconnue-" + UUID.randomUUID();
+
+        ConsumeBatchResponse res = ticketService.consumeBatch(List.of(fresh, already, unknown, fresh, " " + other + " "));
+
+        assertThat(res.consumed()).isEqualTo(2);
+        assertThat(res.alreadyConsumed()).isEqualTo(1);
+        assertThat(res.unknown()).isEqualTo(1);
+        assertThat(res.results()).extracting(ConsumeOutcome::key).containsExactly(fresh, already, unknown, other);
+        assertThat(res.results()).extracting(ConsumeOutcome::status).containsExactly(
+                ConsumeOutcome.Status.CONSUMED, ConsumeOutcome.Status.ALREADY_CONSUMED,
+                ConsumeOutcome.Status.UNKNOWN, ConsumeOutcome.Status.CONSUMED);
+        assertThat(res.results().get(0).ticketId()).isEqualTo(issued.get(1).ticketId());
+        assertThat(res.results().get(1).consumedAt()).isCloseTo(earlier.consumedAt(), within(1, ChronoUnit.MILLIS));
+        assertThat(res.results().get(2).ticketId()).isNull();
+
+        // rejeu du même lot : plus rien à consommer
+        ConsumeBatchResponse replay = ticketService.consumeBatch(List.of(fresh, other));
+        assertThat(replay.consumed()).isZero();
+        assertThat(replay.alreadyConsumed()).isEqualTo(2);
+        assertThat(ticketService.verifyByKey(fresh).consumedAt()).isEqualTo(res.results().get(0).consumedAt());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ticketing.ticket;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Plusieurs portes scannent le même QR en même temps : un seul gagnant par billet.
+ */
+@IntegrationTest
+class TicketConsumeConcurrencyTests {
+
+    private static final int TICKETS = 30;
+    private static final int GATES = 8;
+
+    @Autowired TicketService ticketService;
+    @Autowired TicketRepository tickets;
+    @Autowired TestData data;
+
+    @Test
+    void exactlyOneWinnerPerKey() throws Exception {
+        var order = data.paidOrder(data.buyer(), data.offer(null), TICKETS);
+        List<String> keys = order.tickets().stream()
+                .map(t -> tickets.findFinalKeyById(t.ticketId()).orElseThrow())
+                .toList();
+
+        Map<String, AtomicInteger> winners = new ConcurrentHashMap<>();
+        AtomicInteger losers = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (String key : keys) {
+            for (int g = 0; g < GATES; g++) {
+                futures.add(pool.submit(() -> {
+                    go.await();
+                    try {
+                        ticketService.consumeByKey(key);
+                        winners.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+                    } catch (ResponseStatusException e) {
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+                        losers.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+        }
+        go.countDown();
+        for (Future<?> f : futures) f.get(60, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        assertThat(winners).hasSize(TICKETS);
+        assertThat(winners.values()).allSatisfy(n -> assertThat(n.get()).isEqualTo(1));
+        assertThat(losers.get()).isEqualTo(TICKETS * (GATES - 1));
+        assertThat(keys).allSatisfy(k -> assertThat(ticketService.verifyByKey(k).consumedAt()).isNotNull());
+    }
+}
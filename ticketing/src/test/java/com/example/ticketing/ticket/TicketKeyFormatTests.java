@@ -0,0 +1,86 @@
+package com.example.ticketing.ticket;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.order.dto.IssuedTicket;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Clés hex identiques à l'ancien calcul ; en base64url, les clés hex (QR imprimés) restent
+ * valides avant comme après la migration des lignes.
+ */
+@IntegrationTest(properties = "app.ticket.key-format=base64url")
+class TicketKeyFormatTests {
+
+    @Autowired TicketService ticketService;
+    @Autowired TicketKeyMigration migration;
+    @Autowired JdbcTemplate jdbc;
+    @Autowired TestData data;
+
+    @Test
+    void hexKeysMatchLegacyDigest() throws Exception {
+        TicketKeyGenerator hex = new TicketKeyGenerator("hex");
+        TicketKeyGenerator b64 = new TicketKeyGenerator("base64url");
+        for (String ku : new String[]{"k-user", null, "clé-é€", "x".repeat(300)}) {
+            for (long idx : new long[]{0, 9, 10, 12345, Long.MAX_VALUE}) {
+                String purchase = UUID.randomUUID().toString();
+                String expected = legacy(ku, purchase, 42L, idx);
+                assertThat(hex.generate(ku, purchase, 42L, idx)).isEqualTo(expected);
+                String compact = b64.generate(ku, purchase, 42L, idx);
+                assertThat(compact).hasSize(TicketKeyGenerator.BASE64URL_LENGTH);
+                assertThat(Base64.getUrlDecoder().decode(compact)).isEqualTo(HexFormat.of().parseHex(expected));
+                assertThat(b64.canonical(expected)).isEqualTo(compact);
+            }
+        }
+    }
+
+    @Test
+    void legacyHexKeysSurviveMigration() {
+        List<IssuedTicket> issued = data.tickets(data.paidOrder(data.buyer(), data.offer(null), 4));
+        assertThat(issued).extracting(IssuedTicket::finalKey).allSatisfy(k -> assertThat(k).hasSize(43));
+
+        // billets émis avant le changement de format : clés hex en base
+        List<String> hexKeys = issued.stream().map(t -> toHex(t.finalKey())).toList();
+        for (int i = 0; i < issued.size(); i++) {
+            jdbc.update("update ticket set final_key = ? where id = ?", hexKeys.get(i), issued.get(i).ticketId());
+        }
+
+        // avant migration : les QR hex trouvent leurs lignes
+        assertThat(ticketService.verifyByKey(hexKeys.get(0)).ticketId()).isEqualTo(issued.get(0).ticketId());
+        assertThat(ticketService.consumeByKey(hexKeys.get(1)).ticketId()).isEqualTo(issued.get(1).ticketId());
+        assertThat(ticketService.consumeBatch(List.of(hexKeys.get(2))).consumed()).isEqualTo(1);
+
+        assertThat(migration.migrate()).isEqualTo(4);
+        assertThat(migration.migrate()).isZero();
+        assertThat(jdbc.queryForObject("select count(*) from ticket where char_length(final_key) = 64", Long.class)).isZero();
+
+        // après migration : le QR hex imprimé reste valide
+        assertThat(ticketService.consumeByKey(hexKeys.get(3)).ticketId()).isEqualTo(issued.get(3).ticketId());
+        var batch = ticketService.consumeBatch(List.of(hexKeys.get(1), issued.get(2).finalKey()));
+        assertThat(batch.alreadyConsumed()).isEqualTo(2);
+        assertThat(batch.results()).extracting(ConsumeOutcome::key).containsExactly(hexKeys.get(1), issued.get(2).finalKey());
+    }
+
+    private static String toHex(String base64url) {
+        return HexFormat.of().formatHex(Base64.getUrlDecoder().decode(base64url));
+    }
+
+    // ancien OrderService.generateFinalKey
+    private static String legacy(String kUser, String purchaseKey, Long offerId, long index) throws Exception {
+        String ku = (kUser == null || kUser.isBlank()) ? "nouser" : kUser;
+        String src = ku + ":" + purchaseKey + ":" + offerId + ":" + index;
+        MessageDigest md = MessageDigest.getInstance("SHA-256");
+        return HexFormat.of().formatHex(md.digest(src.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ticketing.ticket;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.user.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * qr.png : réservé au propriétaire (vérifié avant l'ETag), ETag stable par billet et par payload,
+ * 304 sans corps sur If-None-Match.
+ */
+@IntegrationTest
+class TicketQrTests {
+
+    @Autowired MockMvc mvc;
+    @Autowired TestData data;
+
+    @Test
+    void etagRevalidationReturnsNotModified() throws Exception {
+        User buyer = data.buyer();
+        var res = data.paidOrder(buyer, data.offer(null), 1);
+        String url = "/api/tickets/" + res.tickets().get(0).ticketId() + "/qr.png";
+        String bearer = data.bearer(buyer);
+
+        var first = mvc.perform(get(url).header("Authorization", bearer))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("image/png"))
+                .andExpect(header().string("Cache-Control", containsString("immutable")))
+                .andReturn().getResponse();
+        String etag = first.getHeader("ETag");
+        assertThat(etag).isNotBlank();
+        assertThat(first.getContentAsByteArray()).isNotEmpty();
+
+        var again = mvc.perform(get(url).header("Authorization", bearer).header("If-None-Match", etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", etag))
+                .andReturn().getResponse();
+        assertThat(again.getContentAsByteArray()).isEmpty();
+
+        // autre contenu (jeton signé) : autre ETag, l'ancien ne revalide pas
+        String tokenEtag = mvc.perform(get(url).header("Authorization", bearer)
+                        .param("payload", "token").header("If-None-Match", etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("ETag");
+        assertThat(tokenEtag).isNotEqualTo(etag);
+
+        // autre utilisateur, même avec le bon ETag : introuvable, jamais 304 ; anonyme : refusé
+        mvc.perform(get(url).header("Authorization", data.bearer(data.buyer())).header("If-None-Match", etag))
+                .andExpect(status().isNotFound());
+        mvc.perform(get(url).header("If-None-Match", etag))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.ticketing.ticket;
+
+import com.example.ticketing.IntegrationTest;
+import com.example.ticketing.TestData;
+import com.example.ticketing.order.dto.IssuedTicket;
+import com.example.ticketing.security.TicketTokenService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Scans aux portes : consommation conditionnelle une seule fois, et cache de vérification
+ * mis à jour après commit seulement (jamais sur rollback), clés inconnues non mises en cache.
+ * Les métriques du cache (/actuator/metrics) sont réservées ADMIN, seule la santé est publique.
+ */
+@IntegrationTest
+class TicketVerifyCacheTests {
+
+    @Autowired TicketService ticketService;
+    @Autowired TicketTokenService tokens;
+    @Autowired MeterRegistry registry;
+    @Autowired PlatformTransactionManager txManager;
+    @Autowired MockMvc mvc;
+    @Autowired TestData data;
+
+    private List<IssuedTicket> issued;
+
+    @BeforeEach
+    void order() {
+        issued = data.tickets(data.paidOrder(data.buyer(), data.offer(null), 3));
+    }
+
+    @Test
+    void consumedOnceAndCacheUpdatedAfterCommit() {
+        String key = issued.get(0).finalKey();
+        assertThat(ticketService.verifyByKey(key).consumedAt()).isNull();
+
+        TicketConsumeResponse consumed = ticketService.consumeByKey(key);
+        double hits = gets("hit");
+        TicketVerifyResponse after = ticketService.verifyByKey(key);
+        assertThat(gets("hit")).isEqualTo(hits + 1);
+        assertThat(after.valid()).isTrue();
+        assertThat(after.consumedAt()).isEqualTo(consumed.consumedAt());
+
+        assertThatThrownBy(() -> ticketService.consumeByKey(key))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        assertThat(ticketService.verifyByKey(key).consumedAt()).isEqualTo(consumed.consumedAt());
+    }
+
+    @Test
+    void rolledBackConsumeLeavesTicketAndCacheUntouched() {
+        String key = issued.get(1).finalKey();
+        assertThat(ticketService.verifyByKey(key).consumedAt()).isNull();
+
+        new TransactionTemplate(txManager).executeWithoutResult(s -> {
+            ticketService.consumeByKey(key);
+            s.setRollbackOnly();
+        });
+
+        assertThat(ticketService.verifyByKey(key).consumedAt()).isNull();
+        assertThat(ticketService.consumeByKey(key).ticketId()).isEqualTo(issued.get(1).ticketId());
+    }
+
+    @Test
+    void tokenConsumeEvictsCachedEntry() {
+        IssuedTicket t = issued.get(2);
+        assertThat(ticketService.verifyByKey(t.finalKey()).consumedAt()).isNull();
+
+        ticketService.consumeByToken(tokens.issue(t.ticketId(), t.offerId()));
+
+        assertThat(ticketService.verifyByKey(t.finalKey()).consumedAt()).isNotNull();
+    }
+
+    @Test
+    void unknownKeyIsNotCached() {
+        String unknown = "inconnue-" + UUID.randomUUID();
+        double misses = gets("miss");
+
+        assertThat(ticketService.verifyByKey(unknown).valid()).isFalse();
+        assertThat(ticketService.verifyByKey(unknown).valid()).isFalse();
+        assertThat(gets("miss")).isEqualTo(misses + 2);
+    }
+
+    @Test
+    void metricsRequireAdminHealthIsPublic() throws Exception {
+        mvc.perform(get("/actuator/health")).andExpect(status().isOk());
+        mvc.perform(get("/actuator/metrics/cache.gets")).andExpect(status().isForbidden());
+        mvc.perform(get("/actuator/metrics/cache.gets")
+                        .header("Authorization", data.bearer(data.buyer())))
+                .andExpect(status().isForbidden());
+        mvc.perform(get("/actuator/metrics/cache.gets")
+                        .header("Authorization", data.bearer(data.user("ROLE_ADMIN"))))
+                .andExpect(status().isOk());
+    }
+
+    private double gets(String result) {
+        return registry.get("cache.gets").tag("cache", "ticket.verify").tag("result", result)
+                .functionCounter().count();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.ticketing.util;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.client.j2se.MatrixToImageWriter;
+import com.google.zxing.common.BitMatrix;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.util.HexFormat;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * L'encodeur direct doit produire exactement les mêmes pixels que l'ancien chemin
+ * MultiFormatWriter -> MatrixToImageWriter -> ImageIO.
+ */
+class QrPngEncoderTests {
+
+    private static final List<String> CONTENTS = List.of(
+            HexFormat.of().formatHex(new byte[32]),
+            "b8f4c1d0e2a3f5968778695a4b3c2d1e0f1a2b3c4d5e6f708192a3b4c5d6e7f8",
+            "hello"
+    );
+
+    @Test
+    void samePixelsAsImageIoPath() throws Exception {
+        for (String content : CONTENTS) {
+            for (int size : new int[]{64, 256, 300}) {
+                BufferedImage expected = legacy(content, size);
+                BufferedImage actual = ImageIO.read(new ByteArrayInputStream(QrPngEncoder.png(content, size)));
+
+                assertThat(actual.getWidth()).isEqualTo(expected.getWidth());
+                assertThat(actual.getHeight()).isEqualTo(expected.getHeight());
+                for (int y = 0; y < expected.getHeight(); y++) {
+                    for (int x = 0; x < expected.getWidth(); x++) {
+                        assertThat(actual.getRGB(x, y) & 0xFFFFFF)
+                                .as("%s/%d (%d,%d)", content, size, x, y)
+                                .isEqualTo(expected.getRGB(x, y) & 0xFFFFFF);
+                    }
+                }
+            }
+        }
+    }
+
+    private static BufferedImage legacy(String content, int size) throws Exception {
+        BitMatrix m = new MultiFormatWriter().encode(content, BarcodeFormat.QR_CODE, size, size);
+        return MatrixToImageWriter.toBufferedImage(m);
+    }
+}
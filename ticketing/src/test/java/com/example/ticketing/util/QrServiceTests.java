@@ -0,0 +1,55 @@
+package com.example.ticketing.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Cache mémoire borné en octets, et pré-rendu disque relu par une nouvelle instance.
+ */
+class QrServiceTests {
+
+    @TempDir Path dir;
+
+    @Test
+    void memoryCacheIsBoundedInBytes() {
+        QrService qr = new QrService(8 * 1024, "");
+        byte[] first = qr.generatePng("key-0", 256);
+        assertThat(qr.generatePng("key-0", 256)).isSameAs(first);
+
+        long total = 0;
+        for (int i = 0; i < 40; i++) total += qr.generatePng("key-" + i, 256).length;
+
+        assertThat(total).isGreaterThan(8 * 1024);
+        assertThat(qr.cachedBytes()).isPositive().isLessThanOrEqualTo(8 * 1024);
+    }
+
+    @Test
+    void diskStoreIsReusedAcrossInstances() throws Exception {
+        byte[] png = new QrService(1024 * 1024, dir.toString()).generatePng("abc_DEF-123", 256);
+        Path file = dir.resolve("256").resolve("abc_DEF-123.png");
+        assertThat(Files.readAllBytes(file)).isEqualTo(png);
+
+        // nouvelle instance, cache mémoire vide : le fichier est relu au lieu d'être ré-encodé
+        byte[] marker = {1, 2, 3};
+        Files.write(file, marker);
+        assertThat(new QrService(1024 * 1024, dir.toString()).generatePng("abc_DEF-123", 256)).isEqualTo(marker);
+    }
+
+    @Test
+    void unsafeContentIsNeverWrittenToDisk() throws Exception {
+        QrService qr = new QrService(1024 * 1024, dir.toString());
+        qr.generatePng("../evil", 256);
+        qr.generatePng("a/b", 256);
+        qr.generatePng("x".repeat(200), 256);
+
+        try (Stream<Path> files = Files.walk(dir)) {
+            assertThat(files.filter(Files::isRegularFile)).isEmpty();
+        }
+    }
+}